@@ -0,0 +1,33 @@
+package sg.edu.nus.iss.voucher.core.workflow.Scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.ActiveCampaignCatalogService;
+
+@Component
+public class ActiveCampaignCatalogRefreshHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(ActiveCampaignCatalogRefreshHandler.class);
+
+	@Autowired
+	private ActiveCampaignCatalogService activeCampaignCatalogService;
+
+	@Scheduled(fixedDelay = 60000)
+	public void run() {
+
+		logger.info("Start Run ActiveCampaignCatalogRefreshHandler...");
+
+		try {
+			activeCampaignCatalogService.refresh();
+
+		} catch (Exception ex) {
+			logger.error("ActiveCampaignCatalogRefreshHandler exception... {}", ex.toString());
+
+		}
+	}
+
+}
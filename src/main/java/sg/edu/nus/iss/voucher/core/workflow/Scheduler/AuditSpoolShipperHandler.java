@@ -0,0 +1,33 @@
+package sg.edu.nus.iss.voucher.core.workflow.Scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import sg.edu.nus.iss.voucher.core.workflow.aws.service.AuditSpoolShipper;
+
+@Component
+public class AuditSpoolShipperHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuditSpoolShipperHandler.class);
+
+	@Autowired
+	private AuditSpoolShipper auditSpoolShipper;
+
+	@Scheduled(fixedDelayString = "${audit.spool.ship.interval.ms:5000}")
+	public void run() {
+
+		logger.debug("Start Run AuditSpoolShipperHandler...");
+
+		try {
+			auditSpoolShipper.ship();
+
+		} catch (Exception ex) {
+			logger.error("AuditSpoolShipperHandler exception... {}", ex.toString());
+
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package sg.edu.nus.iss.voucher.core.workflow.Scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.CampaignService;
+
+@Component
+public class CampaignCounterReconcileHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(CampaignCounterReconcileHandler.class);
+
+	@Autowired
+	private CampaignService campaignService;
+
+	@Scheduled(fixedDelay = 300000)
+	public void run() {
+
+		logger.info("Start Run CampaignCounterReconcileHandler...");
+
+		try {
+			campaignService.reconcileVoucherCounters();
+
+		} catch (Exception ex) {
+			logger.error("CampaignCounterReconcileHandler exception... {}", ex.toString());
+
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package sg.edu.nus.iss.voucher.core.workflow.Scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.FlashSaleClaimService;
+
+@Component
+public class ClaimTicketPurgeHandler {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClaimTicketPurgeHandler.class);
+
+	@Autowired
+	private FlashSaleClaimService flashSaleClaimService;
+
+	@Scheduled(fixedDelay = 60000)
+	public void run() {
+
+		logger.info("Start Run ClaimTicketPurgeHandler...");
+
+		try {
+			flashSaleClaimService.purgeExpiredTickets();
+
+		} catch (Exception ex) {
+			logger.error("ClaimTicketPurgeHandler exception... {}", ex.toString());
+
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+package sg.edu.nus.iss.voucher.core.workflow.api.connector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Coalesces active-user lookups into bulk calls without holding any of them back: a lookup arriving while no call is
+// in flight is sent at once, and lookups arriving during a call are sent together when it returns.
+// The bulk call carries the service credential, so lookups from every caller share a batch.
+final class ActiveUserBatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(ActiveUserBatcher.class);
+
+	private final Function<List<String>, Map<String, String>> bulkLoader;
+	private final int maxBatchSize;
+	private final Executor sender;
+
+	// Batches waiting to be sent, oldest first. Only the last one still takes new lookups.
+	private final Deque<PendingBatch> pendingBatches = new ArrayDeque<>();
+	private boolean sending;
+
+	ActiveUserBatcher(Function<List<String>, Map<String, String>> bulkLoader, int maxBatchSize, Executor sender) {
+		this.bulkLoader = bulkLoader;
+		this.maxBatchSize = maxBatchSize;
+		this.sender = sender;
+	}
+
+	// Users the bulk call had no answer for are left out.
+	Map<String, String> loadAll(List<String> userIds) {
+		Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+		boolean startSending = false;
+		synchronized (pendingBatches) {
+			for (String userId : userIds) {
+				PendingBatch batch = pendingBatches.peekLast();
+				if (batch == null || (batch.waiters.size() >= maxBatchSize && !batch.waiters.containsKey(userId))) {
+					batch = new PendingBatch();
+					pendingBatches.addLast(batch);
+				}
+				results.put(userId, batch.waiters.computeIfAbsent(userId, key -> new CompletableFuture<>()));
+			}
+			if (!sending && !results.isEmpty()) {
+				sending = true;
+				startSending = true;
+			}
+		}
+		if (startSending) {
+			try {
+				sender.execute(this::drain);
+			} catch (RejectedExecutionException ex) {
+				drain();
+			}
+		}
+		Map<String, String> responses = new LinkedHashMap<>();
+		for (Map.Entry<String, CompletableFuture<String>> result : results.entrySet()) {
+			String responseStr = result.getValue().join();
+			if (responseStr != null) {
+				responses.put(result.getKey(), responseStr);
+			}
+		}
+		return responses;
+	}
+
+	private void drain() {
+		while (true) {
+			PendingBatch batch;
+			synchronized (pendingBatches) {
+				batch = pendingBatches.pollFirst();
+				if (batch == null) {
+					sending = false;
+					return;
+				}
+			}
+			send(batch);
+		}
+	}
+
+	private void send(PendingBatch batch) {
+		List<String> userIds = new ArrayList<>(batch.waiters.keySet());
+		Map<String, String> responses = Map.of();
+		try {
+			responses = bulkLoader.apply(userIds);
+		} catch (Exception ex) {
+			logger.error("Active user batch of {} failed... {}", userIds.size(), ex.toString());
+		}
+		for (Map.Entry<String, CompletableFuture<String>> waiter : batch.waiters.entrySet()) {
+			waiter.getValue().complete(responses.get(waiter.getKey()));
+		}
+	}
+
+	private static final class PendingBatch {
+		private final Map<String, CompletableFuture<String>> waiters = new LinkedHashMap<>();
+	}
+
+}
@@ -1,22 +1,41 @@
 package sg.edu.nus.iss.voucher.core.workflow.api.connector;
 
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.springframework.stereotype.Service;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 
 
 @Service
@@ -28,49 +47,238 @@ public class AuthAPICall {
 	private static final Logger logger = LoggerFactory.getLogger(AuthAPICall.class);
 	private static final String GET_SPECIFIC_ACTIVE_USERS_EXCEPTION_MSG = "getSpecificActiveUsers exception... {}";
 
-	
+	// Auth service answers per userId. Inactive or unknown users are kept for less time than active ones.
+	// Single lookups only put successful answers here, since a rejection may be about the caller's token. Bulk calls
+	// are made with the service credential, so all their answers go here.
+	private final Cache<String, String> activeUsers;
+
+	// Answers to one caller's lookups, so a rejected token is only ever replayed to the caller that sent it.
+	private final Cache<CallerLookup, String> callerLookups;
+
+	// Last successful answer per user, served while the breaker or bulkhead turns calls away.
+	private final Cache<String, String> lastKnownActiveUsers;
+
+	private final CloseableHttpClient authHttpClient;
+
+	private final CircuitBreaker authCircuitBreaker;
+
+	private final Bulkhead authBulkhead;
+
+	// Null when batching is off or no service credential is configured, and every miss is its own call.
+	private final ActiveUserBatcher activeUserBatcher;
+
+	private final ExecutorService activeUserBatchSender;
+
+	private final String serviceAuthorizationHeader;
+
+	public AuthAPICall(CloseableHttpClient authHttpClient, CircuitBreaker authCircuitBreaker, Bulkhead authBulkhead,
+			@Value("${auth.active.user.cache.ttl.seconds:30}") long activeTtlSeconds,
+			@Value("${auth.active.user.cache.negative.ttl.seconds:5}") long inactiveTtlSeconds,
+			@Value("${auth.active.user.cache.fallback.ttl.seconds:600}") long fallbackTtlSeconds,
+			@Value("${auth.active.user.cache.maximum.size:10000}") long maximumSize,
+			@Value("${auth.api.service.token:}") String serviceToken,
+			@Value("${auth.active.user.batch.enabled:false}") boolean batchEnabled,
+			@Value("${auth.active.user.batch.max.size:50}") int batchMaxSize, MeterRegistry meterRegistry) {
+		this.authHttpClient = authHttpClient;
+		this.authCircuitBreaker = authCircuitBreaker;
+		this.authBulkhead = authBulkhead;
+		this.serviceAuthorizationHeader = "Bearer " + serviceToken.trim();
+		if (batchEnabled && !serviceToken.isBlank()) {
+			this.activeUserBatchSender = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "active-user-batcher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.activeUserBatcher = new ActiveUserBatcher(this::loadActiveUsers, batchMaxSize, activeUserBatchSender);
+		} else {
+			this.activeUserBatchSender = null;
+			this.activeUserBatcher = null;
+		}
+		this.lastKnownActiveUsers = Caffeine.newBuilder().maximumSize(maximumSize)
+				.expireAfterWrite(Duration.ofSeconds(fallbackTtlSeconds)).build();
+		long activeTtlNanos = Duration.ofSeconds(activeTtlSeconds).toNanos();
+		long inactiveTtlNanos = Duration.ofSeconds(inactiveTtlSeconds).toNanos();
+		this.activeUsers = Caffeine.newBuilder().maximumSize(maximumSize).expireAfter(new Expiry<String, String>() {
+			@Override
+			public long expireAfterCreate(String userId, String responseStr, long currentTime) {
+				return isSuccess(responseStr) ? activeTtlNanos : inactiveTtlNanos;
+			}
+
+			@Override
+			public long expireAfterUpdate(String userId, String responseStr, long currentTime, long currentDuration) {
+				return expireAfterCreate(userId, responseStr, currentTime);
+			}
+
+			@Override
+			public long expireAfterRead(String userId, String responseStr, long currentTime, long currentDuration) {
+				return currentDuration;
+			}
+		}).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, activeUsers, "activeUsers");
+		this.callerLookups = Caffeine.newBuilder().maximumSize(maximumSize)
+				.expireAfterWrite(Duration.ofSeconds(inactiveTtlSeconds)).recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, callerLookups, "activeUserCallerLookups");
+	}
+
+	private record CallerLookup(String userId, String authorizationHeader) {
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (activeUserBatchSender != null) {
+			activeUserBatchSender.shutdown();
+		}
+	}
+
+	// Single lookups always go out with the caller's own token. Failed calls without a fallback return "" and are
+	// not cached.
 	public String validateActiveUser(String userId, String authorizationHeader) {
-	    String responseStr = "";
-	    RequestConfig config = RequestConfig.custom()
-	            .setConnectTimeout(30000)
-	            .setConnectionRequestTimeout(30000)
-	            .setSocketTimeout(30000)
-	            .build();
-
-	    try (CloseableHttpClient httpClient = HttpClientBuilder.create()
-	            .setDefaultRequestConfig(config)
-	            .build()) {
-	         String url = authURL.trim()+"/active";
-	        
-	        HttpPost request = new HttpPost(url);
-	        request.setHeader("Authorization", authorizationHeader);
-	        request.setHeader("Content-Type", "application/json");
-
-	        // Set the JSON body (you can change this structure as needed)
-	        String jsonBody = "{\"userId\": \"" + userId + "\"}";
-	        request.setEntity(new StringEntity(jsonBody, ContentType.APPLICATION_JSON));
-	        
-	        CloseableHttpResponse httpResponse = httpClient.execute(request);	       
-	        
-	        try {
-	            byte[] responseByteArray = EntityUtils.toByteArray(httpResponse.getEntity());
-	            responseStr = new String(responseByteArray, Charset.forName("UTF-8"));
-	            logger.info("getSpeicficActiveUsers: " + responseStr);
-	        } catch (Exception e) {
-	          
-	            logger.error(GET_SPECIFIC_ACTIVE_USERS_EXCEPTION_MSG, e.toString());
-	        } finally {
-	            try {
-	                httpResponse.close();
-	            } catch (IOException e) {
-	               
-	                logger.error(GET_SPECIFIC_ACTIVE_USERS_EXCEPTION_MSG, e.toString());
-	            }
-	        }
+		String responseStr = validateCallerActiveUser(userId, authorizationHeader);
+		return responseStr == null ? "" : responseStr;
+	}
+
+	// For operations on many users at once. With batching configured, misses share bulk calls made with the service
+	// credential; otherwise each miss is a single lookup with the caller's token. Users without an answer are left out.
+	public Map<String, String> validateActiveUsers(List<String> userIds, String authorizationHeader) {
+		Map<String, String> responses = new LinkedHashMap<>();
+		List<String> misses = new ArrayList<>();
+		for (String userId : new LinkedHashSet<>(userIds)) {
+			String responseStr = activeUsers.getIfPresent(userId);
+			if (responseStr != null) {
+				responses.put(userId, responseStr);
+			} else {
+				misses.add(userId);
+			}
+		}
+		if (activeUserBatcher != null) {
+			responses.putAll(activeUserBatcher.loadAll(misses));
+			return responses;
+		}
+		for (String userId : misses) {
+			String responseStr = validateCallerActiveUser(userId, authorizationHeader);
+			if (responseStr != null) {
+				responses.put(userId, responseStr);
+			}
+		}
+		return responses;
+	}
+
+	// Concurrent misses for one user from one caller share a single call. A successful answer is then shared with
+	// every caller.
+	private String validateCallerActiveUser(String userId, String authorizationHeader) {
+		String responseStr = activeUsers.getIfPresent(userId);
+		return responseStr != null ? responseStr
+				: callerLookups.get(new CallerLookup(userId, authorizationHeader),
+						lookup -> loadActiveUser(userId, authorizationHeader));
+	}
+
+	// Users missing from the bulk response fall back to their last known answer, or are left out.
+	private Map<String, String> loadActiveUsers(List<String> userIds) {
+		Map<String, String> responses = new HashMap<>();
+		try {
+			responses.putAll(Bulkhead.decorateCheckedSupplier(authBulkhead, CircuitBreaker.decorateCheckedSupplier(
+					authCircuitBreaker, () -> requestActiveUsers(userIds, serviceAuthorizationHeader))).get());
+		} catch (Throwable ex) {
+			logger.error(GET_SPECIFIC_ACTIVE_USERS_EXCEPTION_MSG, ex.toString());
+		}
+		for (String userId : userIds) {
+			String responseStr = responses.get(userId);
+			if (responseStr == null) {
+				responseStr = lastKnownActiveUsers.getIfPresent(userId);
+				if (responseStr == null) {
+					continue;
+				}
+				responses.put(userId, responseStr);
+			} else if (isSuccess(responseStr)) {
+				lastKnownActiveUsers.put(userId, responseStr);
+			}
+			activeUsers.put(userId, responseStr);
+		}
+		return responses;
+	}
+
+	private String loadActiveUser(String userId, String authorizationHeader) {
+		try {
+			String responseStr = Bulkhead.decorateCheckedSupplier(authBulkhead, CircuitBreaker
+					.decorateCheckedSupplier(authCircuitBreaker, () -> requestActiveUser(userId, authorizationHeader)))
+					.get();
+			if (isSuccess(responseStr)) {
+				activeUsers.put(userId, responseStr);
+				lastKnownActiveUsers.put(userId, responseStr);
+			}
+			return responseStr;
+		} catch (Throwable ex) {
+			logger.error(GET_SPECIFIC_ACTIVE_USERS_EXCEPTION_MSG, ex.toString());
+			return lastKnownActiveUsers.getIfPresent(userId);
+		}
+	}
+
+	private static boolean isSuccess(String responseStr) {
+		try {
+			JSONObject jsonResponse = (JSONObject) new JSONParser().parse(responseStr);
+			return Boolean.TRUE.equals(jsonResponse.get("success"));
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	String requestActiveUser(String userId, String authorizationHeader) throws IOException {
+	    String url = authURL.trim() + "/active";
+
+	    HttpPost request = new HttpPost(url);
+	    request.setHeader("Authorization", authorizationHeader);
+
+	    JSONObject jsonBody = new JSONObject();
+	    jsonBody.put("userId", userId);
+	    request.setEntity(new StringEntity(jsonBody.toJSONString(), ContentType.APPLICATION_JSON));
+
+	    String responseStr = authHttpClient.execute(request, this::readResponse);
+	    logger.info("getSpeicficActiveUsers: " + responseStr);
+	    return responseStr;
+	}
+
+	// The bulk endpoint answers {"data": {"<userId>": <single-user response>, ...}}.
+	// A response without that map means the service credential was rejected, which says nothing about the users.
+	@SuppressWarnings("unchecked")
+	Map<String, String> requestActiveUsers(List<String> userIds, String authorizationHeader) throws IOException {
+	    HttpPost request = new HttpPost(authURL.trim() + "/active/bulk");
+	    request.setHeader("Authorization", authorizationHeader);
+
+	    JSONArray jsonUserIds = new JSONArray();
+	    jsonUserIds.addAll(userIds);
+	    JSONObject jsonBody = new JSONObject();
+	    jsonBody.put("userIds", jsonUserIds);
+	    request.setEntity(new StringEntity(jsonBody.toJSONString(), ContentType.APPLICATION_JSON));
+
+	    String responseStr = authHttpClient.execute(request, this::readResponse);
+	    JSONObject jsonResponse;
+	    try {
+	        jsonResponse = (JSONObject) new JSONParser().parse(responseStr);
 	    } catch (Exception ex) {
-	        
-	        logger.error(GET_SPECIFIC_ACTIVE_USERS_EXCEPTION_MSG, ex.toString());
+	        throw new IOException("Unreadable bulk active user response", ex);
 	    }
-	    return responseStr;
+
+	    if (!(jsonResponse.get("data") instanceof JSONObject data)) {
+	        throw new IOException("Bulk active user lookup was rejected");
+	    }
+	    Map<String, String> responses = new HashMap<>();
+	    for (String userId : userIds) {
+	        if (data.get(userId) instanceof JSONObject userResponse) {
+	            responses.put(userId, userResponse.toJSONString());
+	        }
+	    }
+	    logger.info("getSpecificActiveUsers bulk: {} of {} users answered", responses.size(), userIds.size());
+	    return responses;
+	}
+
+	// The client closes the response once this returns.
+	private String readResponse(ClassicHttpResponse httpResponse) throws IOException {
+	    byte[] responseByteArray = EntityUtils.toByteArray(httpResponse.getEntity());
+	    int statusCode = httpResponse.getCode();
+	    if (statusCode >= 500) {
+	        throw new IOException("Auth service responded with status " + statusCode);
+	    }
+	    return new String(responseByteArray, StandardCharsets.UTF_8);
 	}
 }
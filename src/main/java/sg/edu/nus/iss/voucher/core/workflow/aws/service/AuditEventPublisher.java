@@ -0,0 +1,193 @@
+package sg.edu.nus.iss.voucher.core.workflow.aws.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
+import sg.edu.nus.iss.voucher.core.workflow.enums.AuditOverflowPolicy;
+import sg.edu.nus.iss.voucher.core.workflow.utility.BoundedRingBuffer;
+
+// Takes audit publishing off the request thread: audits go onto a ring buffer and a single background thread
+// sends them to SQS in batches, once a batch is full or its oldest audit has waited flushIntervalMillis.
+// Audits SQS does not take, or that do not fit the buffer under DROP, are written to the AuditSpool instead.
+@Service
+public class AuditEventPublisher {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuditEventPublisher.class);
+
+	private static final long BLOCK_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final SQSPublishingService sqsPublishingService;
+	private final AuditSpool auditSpool;
+	private final BoundedRingBuffer<AuditDTO> buffer;
+	private final int batchSize;
+	private final long flushIntervalNanos;
+	private final AuditOverflowPolicy overflowPolicy;
+	private final long shutdownTimeoutMillis;
+	private final Counter droppedAudits;
+	private final Thread publisherThread;
+
+	private volatile boolean running;
+
+	// Publishers between their running check and their offer. Shutdown waits for them before its final drain, so an
+	// audit offered just as it closes is not left behind in the buffer.
+	private final AtomicInteger publishing = new AtomicInteger();
+
+	public AuditEventPublisher(SQSPublishingService sqsPublishingService, AuditSpool auditSpool,
+			@Value("${audit.publisher.buffer.capacity:8192}") int bufferCapacity,
+			@Value("${audit.publisher.batch.size:10}") int batchSize,
+			@Value("${audit.publisher.flush.interval.ms:200}") long flushIntervalMillis,
+			@Value("${audit.publisher.overflow.policy:DROP}") AuditOverflowPolicy overflowPolicy,
+			@Value("${audit.publisher.shutdown.timeout.ms:5000}") long shutdownTimeoutMillis,
+			MeterRegistry meterRegistry) {
+		this.sqsPublishingService = sqsPublishingService;
+		this.auditSpool = auditSpool;
+		this.buffer = new BoundedRingBuffer<>(bufferCapacity);
+		this.batchSize = Math.max(1, Math.min(batchSize, SQSPublishingService.MAX_BATCH_ENTRIES));
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		this.overflowPolicy = overflowPolicy;
+		this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+		this.droppedAudits = Counter.builder("audit.publisher.dropped").register(meterRegistry);
+		Gauge.builder("audit.publisher.buffer.size", buffer, BoundedRingBuffer::size).register(meterRegistry);
+		this.publisherThread = new Thread(this::run, "audit-publisher");
+		this.publisherThread.setDaemon(true);
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		publisherThread.start();
+	}
+
+	// Flushes whatever is still buffered before the SQS client goes away.
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		LockSupport.unpark(publisherThread);
+		long deadline = System.currentTimeMillis() + shutdownTimeoutMillis;
+		while (publishing.get() > 0 && System.currentTimeMillis() < deadline) {
+			LockSupport.parkNanos(BLOCK_RETRY_NANOS);
+		}
+		try {
+			publisherThread.join(Math.max(1, deadline - System.currentTimeMillis()));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		if (publisherThread.isAlive()) {
+			logger.error("Audit publisher did not finish flushing, spooling {} buffered audits.", buffer.size());
+			for (AuditDTO next = buffer.poll(); next != null; next = buffer.poll()) {
+				spool(next);
+			}
+			return;
+		}
+		// Audits offered while the publisher thread was exiting.
+		List<AuditDTO> batch = new ArrayList<>(batchSize);
+		for (AuditDTO next = buffer.poll(); next != null; next = buffer.poll()) {
+			batch.add(next);
+			if (batch.size() >= batchSize) {
+				flush(batch);
+			}
+		}
+		if (!batch.isEmpty()) {
+			flush(batch);
+		}
+	}
+
+	// Returns false when the buffer was full and the audit went to the spool, or was dropped if that failed too.
+	public boolean publish(AuditDTO auditDTO) {
+		publishing.incrementAndGet();
+		try {
+			if (!running) {
+				if (!sqsPublishingService.sendMessage(auditDTO)) {
+					spool(auditDTO);
+				}
+				return true;
+			}
+			while (!buffer.offer(auditDTO)) {
+				if (overflowPolicy == AuditOverflowPolicy.DROP || !running) {
+					logger.warn("Audit buffer is full, spooling audit for {}.", auditDTO.getRequestActionEndpoint());
+					spool(auditDTO);
+					return false;
+				}
+				LockSupport.parkNanos(BLOCK_RETRY_NANOS);
+			}
+		} finally {
+			publishing.decrementAndGet();
+		}
+		LockSupport.unpark(publisherThread);
+		return true;
+	}
+
+	private void run() {
+		List<AuditDTO> batch = new ArrayList<>(batchSize);
+		long flushDeadline = 0;
+		while (true) {
+			AuditDTO next = buffer.poll();
+			if (next != null) {
+				if (batch.isEmpty()) {
+					flushDeadline = System.nanoTime() + flushIntervalNanos;
+				}
+				batch.add(next);
+				if (batch.size() >= batchSize) {
+					flush(batch);
+				}
+				continue;
+			}
+			if (!running) {
+				break;
+			}
+			if (batch.isEmpty()) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+				continue;
+			}
+			long remaining = flushDeadline - System.nanoTime();
+			if (remaining <= 0) {
+				flush(batch);
+			} else {
+				LockSupport.parkNanos(this, remaining);
+			}
+		}
+		if (!batch.isEmpty()) {
+			flush(batch);
+		}
+	}
+
+	private void flush(List<AuditDTO> batch) {
+		List<AuditDTO> failed;
+		try {
+			failed = sqsPublishingService.sendMessageBatch(batch);
+		} catch (Exception ex) {
+			logger.error("Error publishing audit batch... {}", ex.toString());
+			failed = batch;
+		}
+		if (!failed.isEmpty()) {
+			logger.error("{} of {} audits were not accepted by SQS, spooling them.", failed.size(), batch.size());
+			for (AuditDTO auditDTO : failed) {
+				spool(auditDTO);
+			}
+		}
+		batch.clear();
+	}
+
+	private void spool(AuditDTO auditDTO) {
+		if (!auditSpool.append(auditDTO)) {
+			droppedAudits.increment();
+			logger.error("Audit for {} was dropped.", auditDTO.getRequestActionEndpoint());
+		}
+	}
+
+}
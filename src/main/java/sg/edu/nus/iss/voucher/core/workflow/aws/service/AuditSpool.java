@@ -0,0 +1,158 @@
+package sg.edu.nus.iss.voucher.core.workflow.aws.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
+
+// Local write-ahead log for audits SQS did not take. Audits are appended to a memory-mapped segment file as
+// [length][json] records; a full segment is sealed and a new one started. Sealed segments are shipped and
+// deleted by AuditSpoolShipper. Segments left by a previous run are picked up as sealed on startup, so spooled audits
+// survive a restart for as long as the directory does; in the deployment that is the pod's emptyDir volume.
+@Service
+public class AuditSpool {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuditSpool.class);
+
+	private static final String SEGMENT_PREFIX = "audit-";
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final Path directory;
+	private final int segmentBytes;
+
+	private long nextSegmentNumber;
+	private Path activeSegment;
+	private MappedByteBuffer activeBuffer;
+
+	public AuditSpool(@Value("${audit.spool.directory:audit-spool}") String directory,
+			@Value("${audit.spool.segment.bytes:4194304}") int segmentBytes) throws IOException {
+		this.directory = Paths.get(directory);
+		this.segmentBytes = segmentBytes;
+		Files.createDirectories(this.directory);
+		for (Path segment : listSegments()) {
+			nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(segment) + 1);
+		}
+	}
+
+	// Returns false when the audit could not be written, in which case it is lost.
+	public synchronized boolean append(AuditDTO auditDTO) {
+		try {
+			byte[] record = objectMapper.writeValueAsBytes(auditDTO);
+			if (record.length + 2 * Integer.BYTES > segmentBytes) {
+				logger.error("Audit of {} bytes does not fit a spool segment.", record.length);
+				return false;
+			}
+			if (activeBuffer == null || activeBuffer.remaining() < record.length + 2 * Integer.BYTES) {
+				rollSegment();
+			}
+			// The record's bytes go in before its length, so a crash mid-append leaves the length at 0 and
+			// readers stop there.
+			int position = activeBuffer.position();
+			activeBuffer.put(position + Integer.BYTES, record);
+			activeBuffer.putInt(position, record.length);
+			activeBuffer.position(position + Integer.BYTES + record.length);
+			return true;
+		} catch (IOException ex) {
+			logger.error("Error appending audit to spool... {}", ex.toString());
+			return false;
+		}
+	}
+
+	// Seals the active segment if it holds anything, so everything spooled so far can be shipped.
+	public synchronized List<Path> sealedSegments() throws IOException {
+		if (activeBuffer != null && activeBuffer.position() > 0) {
+			sealActiveSegment();
+		}
+		List<Path> sealed = listSegments();
+		sealed.remove(activeSegment);
+		return sealed;
+	}
+
+	public List<AuditDTO> read(Path segment) throws IOException {
+		List<AuditDTO> auditDTOs = new ArrayList<>();
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+		while (buffer.remaining() >= Integer.BYTES) {
+			int length = buffer.getInt();
+			if (length <= 0 || length > buffer.remaining()) {
+				break;
+			}
+			byte[] record = new byte[length];
+			buffer.get(record);
+			try {
+				auditDTOs.add(objectMapper.readValue(record, AuditDTO.class));
+			} catch (IOException ex) {
+				logger.error("Skipping unreadable audit in {}... {}", segment.getFileName(), ex.toString());
+			}
+		}
+		return auditDTOs;
+	}
+
+	public void delete(Path segment) throws IOException {
+		Files.deleteIfExists(segment);
+	}
+
+	@PreDestroy
+	public synchronized void close() {
+		if (activeBuffer != null) {
+			activeBuffer.force();
+		}
+	}
+
+	private void rollSegment() throws IOException {
+		if (activeBuffer != null) {
+			sealActiveSegment();
+		}
+		Path segment = directory.resolve(
+				String.format("%s%020d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			activeBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+		}
+		activeSegment = segment;
+	}
+
+	private void sealActiveSegment() {
+		activeBuffer.force();
+		activeBuffer = null;
+		activeSegment = null;
+	}
+
+	private List<Path> listSegments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return new ArrayList<>(files.filter(AuditSpool::isSegment).sorted().toList());
+		}
+	}
+
+	private static boolean isSegment(Path path) {
+		String name = path.getFileName().toString();
+		return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+	}
+
+	private static long segmentNumber(Path segment) {
+		String name = segment.getFileName().toString();
+		try {
+			return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+		} catch (NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+}
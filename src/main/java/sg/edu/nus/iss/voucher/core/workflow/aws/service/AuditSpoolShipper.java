@@ -0,0 +1,85 @@
+package sg.edu.nus.iss.voucher.core.workflow.aws.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
+
+// Replays spooled audits to SQS oldest segment first, deleting a segment once SQS has taken it. While SQS keeps
+// failing, attempts back off exponentially from initialBackoffMillis up to maxBackoffMillis.
+@Service
+public class AuditSpoolShipper {
+
+	private static final Logger logger = LoggerFactory.getLogger(AuditSpoolShipper.class);
+
+	private final AuditSpool auditSpool;
+	private final SQSPublishingService sqsPublishingService;
+	private final long initialBackoffMillis;
+	private final long maxBackoffMillis;
+
+	private int consecutiveFailures;
+	private long nextAttemptMillis;
+
+	public AuditSpoolShipper(AuditSpool auditSpool, SQSPublishingService sqsPublishingService,
+			@Value("${audit.spool.retry.initial.backoff.ms:1000}") long initialBackoffMillis,
+			@Value("${audit.spool.retry.max.backoff.ms:300000}") long maxBackoffMillis) {
+		this.auditSpool = auditSpool;
+		this.sqsPublishingService = sqsPublishingService;
+		this.initialBackoffMillis = initialBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	// Returns the number of audits SQS accepted in this run.
+	public synchronized int ship() {
+		if (System.currentTimeMillis() < nextAttemptMillis) {
+			return 0;
+		}
+		int shipped = 0;
+		try {
+			for (Path segment : auditSpool.sealedSegments()) {
+				List<AuditDTO> auditDTOs = auditSpool.read(segment);
+				List<AuditDTO> failed = auditDTOs.isEmpty() ? List.of()
+						: sqsPublishingService.sendMessageBatch(auditDTOs);
+				if (!auditDTOs.isEmpty() && failed.size() == auditDTOs.size()) {
+					backOff();
+					return shipped;
+				}
+				// Only the entries SQS rejected are spooled again, so accepted ones are not sent twice.
+				for (AuditDTO auditDTO : failed) {
+					auditSpool.append(auditDTO);
+				}
+				auditSpool.delete(segment);
+				shipped += auditDTOs.size() - failed.size();
+				if (!failed.isEmpty()) {
+					backOff();
+					return shipped;
+				}
+			}
+		} catch (IOException ex) {
+			logger.error("Error shipping audit spool... {}", ex.toString());
+			backOff();
+			return shipped;
+		}
+		if (shipped > 0) {
+			logger.info("Shipped {} spooled audits to SQS.", shipped);
+		}
+		consecutiveFailures = 0;
+		nextAttemptMillis = 0;
+		return shipped;
+	}
+
+	private void backOff() {
+		consecutiveFailures++;
+		long backoffMillis = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(consecutiveFailures - 1, 30));
+		nextAttemptMillis = System.currentTimeMillis() + backoffMillis;
+		logger.warn("Audit spool shipping failed {} times in a row, retrying in {} ms.", consecutiveFailures,
+				backoffMillis);
+	}
+
+}
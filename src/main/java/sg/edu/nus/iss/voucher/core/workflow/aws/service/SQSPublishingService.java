@@ -6,12 +6,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class SQSPublishingService {
@@ -23,30 +32,17 @@ public class SQSPublishingService {
 	String auditQueueURL;
 	
 	private static final Logger logger = LoggerFactory.getLogger(SQSPublishingService.class);
-	
-	public void sendMessage(AuditDTO auditDTO) {
-	    try {
-	    	ObjectMapper objectMapper = new ObjectMapper();
-
-	    	    	
-	        String messageBody = objectMapper.writeValueAsString(auditDTO);
-	        byte[] messageBytes = messageBody.getBytes(StandardCharsets.UTF_8);
-	        int messageSize = messageBytes.length;
-	        int maxMessageSize = 256 * 1024; ; // Max Size 256 KB in bytes
-	        logger.info("Serialized Audit Log JSON");
-
-	        if (messageSize > maxMessageSize) {
-	            logger.warn("Message size exceeds the 256 KB limit: {} bytes, truncating remarks.", messageSize);
 
-	            
-	            String truncatedRemarks = truncateMessage(auditDTO.getRemarks(), maxMessageSize, messageBody);
-	            auditDTO.setRemarks(truncatedRemarks.concat("..."));
+	// SQS caps a single message and a whole SendMessageBatch payload at 256 KB, and a batch at 10 entries.
+	private static final int MAX_MESSAGE_SIZE = 256 * 1024;
+	public static final int MAX_BATCH_ENTRIES = 10;
 
-	            messageBody = objectMapper.writeValueAsString(auditDTO);
-	            messageBytes = messageBody.getBytes(StandardCharsets.UTF_8);
-
-	            logger.info("Truncated message size: {} bytes", messageBytes.length);
-	        }
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	
+	// Returns false when SQS did not take the message.
+	public boolean sendMessage(AuditDTO auditDTO) {
+	    try {
+	        String messageBody = toMessageBody(auditDTO);
 
 	        SendMessageRequest sendMsgRequest = new SendMessageRequest()
 	                .withQueueUrl(auditQueueURL)
@@ -55,9 +51,78 @@ public class SQSPublishingService {
 
 	        amazonSQS.sendMessage(sendMsgRequest);
 	        logger.info("Message sent to SQS");
+	        return true;
 	    } catch (Exception e) {
 	        logger.error("Error sending message to SQS: {}", e);
+	        return false;
+	    }
+	}
+
+	// Sends up to MAX_BATCH_ENTRIES messages per call, starting a new call whenever the 256 KB batch payload
+	// limit would be crossed. Returns the audits SQS did not accept.
+	public List<AuditDTO> sendMessageBatch(List<AuditDTO> auditDTOs) {
+	    List<AuditDTO> failed = new ArrayList<>();
+	    List<SendMessageBatchRequestEntry> entries = new ArrayList<>(MAX_BATCH_ENTRIES);
+	    Map<String, AuditDTO> entryAudits = new HashMap<>();
+	    int batchBytes = 0;
+	    for (AuditDTO auditDTO : auditDTOs) {
+	        String messageBody;
+	        try {
+	            messageBody = toMessageBody(auditDTO);
+	        } catch (Exception e) {
+	            logger.error("Error serializing audit for SQS batch: {}", e.toString());
+	            continue;
+	        }
+	        int messageSize = messageBody.getBytes(StandardCharsets.UTF_8).length;
+	        if (entries.size() == MAX_BATCH_ENTRIES || batchBytes + messageSize > MAX_MESSAGE_SIZE) {
+	            failed.addAll(sendBatch(entries, entryAudits));
+	            entries.clear();
+	            entryAudits.clear();
+	            batchBytes = 0;
+	        }
+	        String entryId = String.valueOf(entries.size());
+	        entries.add(new SendMessageBatchRequestEntry(entryId, messageBody).withDelaySeconds(5));
+	        entryAudits.put(entryId, auditDTO);
+	        batchBytes += messageSize;
+	    }
+	    if (!entries.isEmpty()) {
+	        failed.addAll(sendBatch(entries, entryAudits));
+	    }
+	    return failed;
+	}
+
+	private List<AuditDTO> sendBatch(List<SendMessageBatchRequestEntry> entries, Map<String, AuditDTO> entryAudits) {
+	    try {
+	        SendMessageBatchResult result = amazonSQS
+	                .sendMessageBatch(new SendMessageBatchRequest(auditQueueURL, new ArrayList<>(entries)));
+	        List<AuditDTO> failed = new ArrayList<>();
+	        for (BatchResultErrorEntry errorEntry : result.getFailed()) {
+	            logger.error("SQS rejected audit batch entry: {} {}", errorEntry.getCode(), errorEntry.getMessage());
+	            failed.add(entryAudits.get(errorEntry.getId()));
+	        }
+	        logger.info("Batch of {} messages sent to SQS", entries.size() - failed.size());
+	        return failed;
+	    } catch (Exception e) {
+	        logger.error("Error sending message batch to SQS: {}", e.toString());
+	        return new ArrayList<>(entryAudits.values());
+	    }
+	}
+
+	private String toMessageBody(AuditDTO auditDTO) throws JsonProcessingException {
+	    String messageBody = objectMapper.writeValueAsString(auditDTO);
+	    int messageSize = messageBody.getBytes(StandardCharsets.UTF_8).length;
+	    logger.info("Serialized Audit Log JSON");
+
+	    if (messageSize > MAX_MESSAGE_SIZE) {
+	        logger.warn("Message size exceeds the 256 KB limit: {} bytes, truncating remarks.", messageSize);
+
+	        String truncatedRemarks = truncateMessage(auditDTO.getRemarks(), MAX_MESSAGE_SIZE, messageBody);
+	        auditDTO.setRemarks(truncatedRemarks.concat("..."));
+
+	        messageBody = objectMapper.writeValueAsString(auditDTO);
+	        logger.info("Truncated message size: {} bytes", messageBody.getBytes(StandardCharsets.UTF_8).length);
 	    }
+	    return messageBody;
 	}
 
 	public String truncateMessage(String remarks, int maxMessageSize, String currentMessage) {
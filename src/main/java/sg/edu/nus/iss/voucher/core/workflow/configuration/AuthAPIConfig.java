@@ -0,0 +1,138 @@
+package sg.edu.nus.iss.voucher.core.workflow.configuration;
+
+import java.time.Duration;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.ApacheHttpClientContext;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.DefaultApacheHttpClientObservationConvention;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.ObservationExecChainHandler;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.observation.ObservationRegistry;
+
+@Configuration
+public class AuthAPIConfig {
+
+	@Value("${auth.api.connect.timeout.ms:500}")
+	private int connectTimeoutMs;
+
+	@Value("${auth.api.connection.request.timeout.ms:200}")
+	private int connectionRequestTimeoutMs;
+
+	@Value("${auth.api.socket.timeout.ms:2000}")
+	private int socketTimeoutMs;
+
+	@Value("${auth.api.max.connections:100}")
+	private int maxConnections;
+
+	@Value("${auth.api.max.connections.per.route:50}")
+	private int maxConnectionsPerRoute;
+
+	@Value("${auth.api.idle.connection.timeout.seconds:30}")
+	private long idleConnectionTimeoutSeconds;
+
+	@Value("${auth.api.circuit.breaker.failure.rate.threshold:50}")
+	private float failureRateThreshold;
+
+	@Value("${auth.api.circuit.breaker.slow.call.duration.ms:1000}")
+	private long slowCallDurationMs;
+
+	@Value("${auth.api.circuit.breaker.sliding.window.size:20}")
+	private int slidingWindowSize;
+
+	@Value("${auth.api.circuit.breaker.open.state.wait.seconds:10}")
+	private long openStateWaitSeconds;
+
+	@Value("${auth.api.bulkhead.max.concurrent.calls:20}")
+	private int bulkheadMaxConcurrentCalls;
+
+	@Value("${auth.api.bulkhead.max.wait.ms:50}")
+	private long bulkheadMaxWaitMs;
+
+	// One keep-alive pool shared by every auth-service call instead of a new client and handshake per call.
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient authHttpClient(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+		PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+				.setMaxConnTotal(maxConnections)
+				.setMaxConnPerRoute(maxConnectionsPerRoute)
+				.setDefaultConnectionConfig(ConnectionConfig.custom()
+						.setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+						.setSocketTimeout(Timeout.ofMilliseconds(socketTimeoutMs))
+						.setValidateAfterInactivity(TimeValue.ofSeconds(2))
+						.build())
+				.build();
+		new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "authApi").bindTo(meterRegistry);
+
+		RequestConfig config = RequestConfig.custom()
+				.setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+				.build();
+
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(config)
+				.addExecInterceptorAfter(ChainElement.RETRY.name(), "micrometer",
+						new ObservationExecChainHandler(observationRegistry, new AuthApiObservationConvention()))
+				.evictExpiredConnections()
+				.evictIdleConnections(TimeValue.ofSeconds(idleConnectionTimeoutSeconds))
+				.build();
+	}
+
+	// Tags each call with its request path, so /active and /active/bulk are timed apart.
+	private static class AuthApiObservationConvention extends DefaultApacheHttpClientObservationConvention {
+
+		@Override
+		protected KeyValue uri(ApacheHttpClientContext context) {
+			return KeyValue.of("uri", context.getCarrier().getPath());
+		}
+
+	}
+
+	// Opens on failed or slow auth calls, then lets a few probes through in half-open state before closing again.
+	@Bean
+	public CircuitBreaker authCircuitBreaker(MeterRegistry meterRegistry) {
+		CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+				.failureRateThreshold(failureRateThreshold)
+				.slowCallRateThreshold(failureRateThreshold)
+				.slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+				.slidingWindowSize(slidingWindowSize)
+				.minimumNumberOfCalls(Math.max(1, slidingWindowSize / 2))
+				.waitDurationInOpenState(Duration.ofSeconds(openStateWaitSeconds))
+				.permittedNumberOfCallsInHalfOpenState(3)
+				.build());
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+		return registry.circuitBreaker("authApi");
+	}
+
+	// Caps the request threads that can be waiting on the auth service at once.
+	@Bean
+	public Bulkhead authBulkhead(MeterRegistry meterRegistry) {
+		BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+				.maxConcurrentCalls(bulkheadMaxConcurrentCalls)
+				.maxWaitDuration(Duration.ofMillis(bulkheadMaxWaitMs))
+				.build());
+		TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+		return registry.bulkhead("authApi");
+	}
+
+}
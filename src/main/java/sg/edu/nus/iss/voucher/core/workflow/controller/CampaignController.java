@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -24,6 +25,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.HtmlUtils;
 
@@ -54,6 +56,9 @@ public class CampaignController {
 	@Autowired
 	private AuditService auditService;
 
+	@Autowired
+	private ActiveCampaignResponseCache activeCampaignResponseCache;
+
 	@Value("${audit.activity.type.prefix}")
 	String activityTypePrefix;
 
@@ -67,8 +72,10 @@ public class CampaignController {
 	private static final String PARAM_SIZE = "size";
 
 	@GetMapping(value = "", produces = "application/json")
-	public ResponseEntity<APIResponse<List<CampaignDTO>>> getAllActiveCampaigns(
-			@RequestParam Map<String, String> allParams, @Valid CampaignSearchRequest searchRequest) {
+	public ResponseEntity<?> getAllActiveCampaigns(
+			@RequestParam Map<String, String> allParams, @Valid CampaignSearchRequest searchRequest,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			WebRequest webRequest) {
 		logger.info("Calling Campaign getAllActiveCampaigns API");
 
 		String activityType = "Active Campaign List";
@@ -103,31 +110,17 @@ public class CampaignController {
 
 			Pageable pageable = PageRequest.of(searchRequest.getPage(), searchRequest.getSize(),
 					Sort.by(SORT_FIELD_START_DATE).ascending());
-			Map<Long, List<CampaignDTO>> resultMap = campaignService.findAllActiveCampaigns(sanitizedDescription,
-					pageable);
-			List<CampaignDTO> campaignDTOList = new ArrayList<>();
-
-			long totalRecord = resultMap.keySet().stream().findFirst().orElse(0L);
-
-			campaignDTOList = resultMap.getOrDefault(totalRecord, new ArrayList<>());
-
-			logger.info("Total record: {}", totalRecord);
-			logger.info("CampaignDTO List: {}", campaignDTOList);
-
-			if (campaignDTOList.size() > 0) {
-				message = "Successfully retrieve all active campaigns.";
-
-				auditService.logAudit(auditDTO, 200, message, "");
-				return ResponseEntity.status(HttpStatus.OK)
-						.body(APIResponse.success(campaignDTOList, message, totalRecord));
-
-			} else {
-				message = "No campaigns available.";
-				logger.error(message);
-
-				auditService.logAudit(auditDTO, 200, message, "");
-				return ResponseEntity.status(HttpStatus.OK).body(APIResponse.noList(campaignDTOList, message));
+			String description = sanitizedDescription;
+			ActiveCampaignResponseCache.CachedResponse response = activeCampaignResponseCache.get(description, pageable,
+					() -> findActiveCampaigns(description, pageable));
+
+			logger.info("Total record: {}", response.totalRecord());
+			if (webRequest.checkNotModified(activeCampaignResponseCache.eTag(response, acceptEncoding))) {
+				auditService.logAudit(auditDTO, 304, "Active campaign list not modified.", "");
+				return null;
 			}
+			auditService.logAudit(auditDTO, 200, response.message(), "");
+			return activeCampaignResponseCache.toResponseEntity(response, acceptEncoding);
 
 		} catch (Exception ex) {
 			logger.error("An error occurred while processing getAllActiveCampaigns API.", ex);
@@ -139,6 +132,23 @@ public class CampaignController {
 		}
 	}
 
+	private APIResponse<List<CampaignDTO>> findActiveCampaigns(String description, Pageable pageable) {
+		Map<Long, List<CampaignDTO>> resultMap = campaignService.findAllActiveCampaigns(description, pageable);
+
+		long totalRecord = resultMap.keySet().stream().findFirst().orElse(0L);
+
+		List<CampaignDTO> campaignDTOList = resultMap.getOrDefault(totalRecord, new ArrayList<>());
+
+		logger.info("CampaignDTO List: {}", campaignDTOList);
+
+		if (campaignDTOList.size() > 0) {
+			return APIResponse.success(campaignDTOList, "Successfully retrieve all active campaigns.", totalRecord);
+		}
+		String message = "No campaigns available.";
+		logger.error(message);
+		return APIResponse.noList(campaignDTOList, message);
+	}
+
 	@PostMapping(value = "/stores", produces = "application/json")
 	public ResponseEntity<APIResponse<List<CampaignDTO>>> getAllCampaignsByStoreId(
 			@RequestHeader("Authorization") String authorizationHeader, @RequestBody CampaignRequest messagePayload,
@@ -1,5 +1,7 @@
 package sg.edu.nus.iss.voucher.core.workflow.controller;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +16,7 @@ import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.HtmlUtils;
 
@@ -72,7 +75,8 @@ public class StoreController {
 	        @RequestHeader("Authorization") String authorizationHeader,
 	        @RequestParam Map<String, String> allParams,
 	        @Valid StoreSearchRequest searchRequest,
-	        HttpServletRequest request) {
+	        HttpServletRequest request,
+	        WebRequest webRequest) {
 
 	    final String activityType = "GetAllActiveStoreList";
 	    final String endpoint = API_CORE_STORES_ENDPOINT;
@@ -102,6 +106,12 @@ public class StoreController {
 	                    message, HttpStatus.BAD_REQUEST, "", authorizationHeader);
 	        }
 
+	        if (isStoreListNotModified(webRequest)) {
+	            AuditDTO auditDTO = auditService.createAuditDTO(userId, activityType, activityTypePrefix, endpoint, httpMethod);
+	            auditService.logAudit(auditDTO, HttpStatus.NOT_MODIFIED.value(), "Active store list not modified.", authorizationHeader);
+	            return null;
+	        }
+
 	        Pageable pageable = PageRequest.of(searchRequest.getPage(), searchRequest.getSize(),
 	                Sort.by("storeName").ascending());
 
@@ -355,6 +365,15 @@ public class StoreController {
 
 	}
 	
+	// Also writes the ETag and Last-Modified headers, which the 200 response keeps.
+	private boolean isStoreListNotModified(WebRequest webRequest) {
+	    LocalDateTime lastModifiedDate = storeService.findLastModifiedDate();
+	    long lastModified = lastModifiedDate == null ? -1
+	            : lastModifiedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	    String eTag = "W/\"" + storeService.countStores() + "-" + lastModified + "\"";
+	    return webRequest.checkNotModified(eTag, lastModified);
+	}
+
 	private boolean isGetWithBody(HttpServletRequest request) {
 	    return "GET".equals(request.getMethod()) && request.getContentLength() > 0;
 	}
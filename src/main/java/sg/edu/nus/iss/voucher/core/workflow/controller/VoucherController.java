@@ -15,13 +15,18 @@ import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import io.jsonwebtoken.JwtException;
 import sg.edu.nus.iss.voucher.core.workflow.dto.*;
 import sg.edu.nus.iss.voucher.core.workflow.entity.*;
 import sg.edu.nus.iss.voucher.core.workflow.enums.HTTPVerb;
 import sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus;
+import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignFullyClaimedException;
 import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignNotFoundException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.ClaimOutcomeUnknownException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyClaimedException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyConsumedException;
 import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherNotFoundException;
 import sg.edu.nus.iss.voucher.core.workflow.jwt.JWTService;
 import sg.edu.nus.iss.voucher.core.workflow.service.impl.*;
@@ -43,9 +48,27 @@ public class VoucherController {
 	@Autowired
 	private JWTService jwtService;
 	
+	@Autowired
+	private FlashSaleClaimService flashSaleClaimService;
+	
+	@Autowired
+	private ClaimSequencer claimSequencer;
+	
+	@Autowired
+	private IdempotencyService idempotencyService;
+	
 	
 	@Value("${audit.activity.type.prefix}")
 	String activityTypePrefix;
+	
+	@Value("${claim.group.commit.enabled:false}")
+	boolean groupCommitEnabled;
+	
+	@Value("${claim.bulk.max.campaigns:100}")
+	int bulkClaimMaxCampaigns;
+	
+	@Value("${consume.batch.max.vouchers:200}")
+	int batchConsumeMaxVouchers;
 
 	@PostMapping(value = "", produces = "application/json")
 	public ResponseEntity<APIResponse<VoucherDTO>> getByVoucherId(@RequestHeader("Authorization") String authorizationHeader, 	@RequestBody VoucherRequest voucherRequest) throws JwtException, IllegalArgumentException, Exception {
@@ -92,9 +115,16 @@ public class VoucherController {
 	}
 
 	@PostMapping(value = "/claim", produces = "application/json")
-	public ResponseEntity<APIResponse<VoucherDTO>> claimVoucher(@RequestHeader("Authorization") String authorizationHeader, @RequestBody VoucherRequest voucherRequest) throws JwtException, IllegalArgumentException, Exception {
+	public ResponseEntity<APIResponse<?>> claimVoucher(@RequestHeader("Authorization") String authorizationHeader,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey, @RequestBody VoucherRequest voucherRequest) throws JwtException, IllegalArgumentException, Exception {
 		
 		String authorizationUserID = jwtService.retrieveUserID(authorizationHeader);
+		return idempotencyService.execute("claim", authorizationUserID, idempotencyKey,
+				voucherRequest.getCampaignId() + ":" + voucherRequest.getClaimedBy(),
+				() -> processClaim(authorizationHeader, authorizationUserID, voucherRequest));
+	}
+
+	private ResponseEntity<APIResponse<?>> processClaim(String authorizationHeader, String authorizationUserID, VoucherRequest voucherRequest) {
 		AuditDTO auditDTO = auditService.createAuditDTO(authorizationUserID, "Claim Voucher", activityTypePrefix,"/api/core/vouchers/claim", HTTPVerb.POST);
         String message="";
 		try {
@@ -128,19 +158,50 @@ public class VoucherController {
 						.body(APIResponse.error(message));
 			}
 
+			//Queue the claim for flash sale campaigns
+			if (campaign.isFlashSale()) {
+				ClaimTicketDTO claimTicketDTO = flashSaleClaimService.enqueue(voucherRequest);
+				if (claimTicketDTO == null) {
+					message = "Too many claims are waiting for this campaign. Please try again later.";
+					auditService.logAudit(auditDTO,429,message, authorizationHeader);
+					return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(APIResponse.error(message));
+				}
+				message = "Voucher claim has been queued.";
+				auditService.logAudit(auditDTO,202,message, authorizationHeader);
+				return ResponseEntity.status(HttpStatus.ACCEPTED).body(APIResponse.success(claimTicketDTO, message));
+			}
+
 			//Claim the Voucher
-			VoucherDTO voucherDTO = voucherService.claimVoucher(voucherRequest);
+			VoucherDTO voucherDTO = groupCommitEnabled ? claimSequencer.claimVoucher(voucherRequest)
+					: voucherService.claimVoucher(voucherRequest);
 			message = "Voucher has been successfully claimed.";
 			auditService.logAudit(auditDTO,200,message, authorizationHeader);
 			return ResponseEntity.status(HttpStatus.OK)
 					.body(APIResponse.success(voucherDTO, message));
 
+		} catch (CampaignFullyClaimedException ex) {
+			message = "Campaign has been fully claimed.";
+			logger.error(ex.getMessage());
+			auditService.logAudit(auditDTO,401,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(APIResponse.error(message));
 		} catch (CampaignNotFoundException ex) {
 			message = "Campaign not Found.";
 			logger.error(ex.getMessage());
 			auditDTO.setRemarks(ex.toString());
 			auditService.logAudit(auditDTO,404,message, authorizationHeader);
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(APIResponse.error(message));
+		} catch (VoucherAlreadyClaimedException ex) {
+			message = "Voucher has already been claimed.";
+			logger.error(ex.getMessage());
+			auditService.logAudit(auditDTO,400,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(APIResponse.error(message));
+		} catch (ClaimOutcomeUnknownException ex) {
+			// 5xx responses are not stored against the Idempotency-Key, so the retry reports the claim's real outcome.
+			message = "The claim is still being processed. Please retry with the same Idempotency-Key.";
+			logger.error(ex.getMessage());
+			auditDTO.setRemarks(ex.toString());
+			auditService.logAudit(auditDTO,503,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(APIResponse.error(message));
 		} catch (Exception ex) {
 			logger.error("Calling Voucher claim API failed: " + ex.getMessage(), ex);
 			message = "The attempt to claim the voucher has been unsuccessful.";
@@ -151,6 +212,95 @@ public class VoucherController {
 		}
 	}
 	
+	@PostMapping(value = "/claim/bulk", produces = "application/json")
+	public ResponseEntity<APIResponse<List<VoucherClaimResult>>> claimVouchers(@RequestHeader("Authorization") String authorizationHeader,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey, @RequestBody VoucherBulkClaimRequest bulkClaimRequest) throws JwtException, IllegalArgumentException, Exception {
+
+		String authorizationUserID = jwtService.retrieveUserID(authorizationHeader);
+		List<String> campaignIds = bulkClaimRequest.getCampaignIds() == null ? List.of()
+				: bulkClaimRequest.getCampaignIds().stream().map(id -> GeneralUtility.makeNotNull(id).trim()).toList();
+		return idempotencyService.execute("claim-bulk", authorizationUserID, idempotencyKey,
+				bulkClaimRequest.getClaimedBy() + ":" + String.join(",", campaignIds),
+				() -> processBulkClaim(authorizationHeader, authorizationUserID, bulkClaimRequest.getClaimedBy(), campaignIds));
+	}
+
+	private ResponseEntity<APIResponse<List<VoucherClaimResult>>> processBulkClaim(String authorizationHeader, String authorizationUserID,
+			String claimBy, List<String> campaignIds) {
+		AuditDTO auditDTO = auditService.createAuditDTO(authorizationUserID, "Bulk Claim Voucher", activityTypePrefix,"/api/core/vouchers/claim/bulk", HTTPVerb.POST);
+		String message = "";
+		try {
+			logger.info("Calling Voucher bulk claim API...");
+
+			if (campaignIds.isEmpty() || campaignIds.size() > bulkClaimMaxCampaigns) {
+				message = "Bad Request: Between 1 and " + bulkClaimMaxCampaigns + " campaign IDs are required.";
+				auditService.logAudit(auditDTO,400,message, authorizationHeader);
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(APIResponse.error(message));
+			}
+
+			message = voucherService.validateUser(claimBy, authorizationHeader);
+			if (!message.isEmpty()) {
+				auditService.logAudit(auditDTO,400,message,"");
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(APIResponse.error(message));
+			}
+
+			List<VoucherClaimResult> results;
+			try {
+				results = voucherService.claimVouchersForUser(claimBy, campaignIds);
+			} catch (VoucherAlreadyClaimedException ex) {
+				// Another replica committed one of these claims after it was checked. The rolled-back batch is retried,
+				// and the retry reports that campaign as already claimed.
+				logger.error(ex.getMessage());
+				results = voucherService.claimVouchersForUser(claimBy, campaignIds);
+			}
+			long claimedCount = results.stream().filter(VoucherClaimResult::isClaimed).count();
+			message = "Claimed " + claimedCount + " of " + results.size() + " vouchers.";
+			auditService.logAudit(auditDTO,200,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.OK).body(APIResponse.success(results, message, claimedCount));
+
+		} catch (Exception ex) {
+			logger.error("Calling Voucher bulk claim API failed: " + ex.getMessage(), ex);
+			message = "The attempt to claim the vouchers has been unsuccessful.";
+			auditDTO.setRemarks(ex.toString());
+			auditService.logAudit(auditDTO,500,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(APIResponse.error(message));
+		}
+	}
+
+	@GetMapping(value = "/claim/tickets/{ticketId}", produces = "application/json")
+	public ResponseEntity<APIResponse<ClaimTicketDTO>> getClaimTicket(@RequestHeader("Authorization") String authorizationHeader, @PathVariable String ticketId,
+			@RequestParam(defaultValue = "0") long waitMs, WebRequest webRequest) throws JwtException, IllegalArgumentException, Exception {
+
+		String authHeaderUserId = jwtService.retrieveUserID(authorizationHeader);
+		AuditDTO auditDTO = auditService.createAuditDTO(authHeaderUserId, "Get Claim Ticket", activityTypePrefix,"/api/core/vouchers/claim/tickets", HTTPVerb.GET);
+		String message = "";
+		try {
+			logger.info("Calling get claim ticket API...");
+			ClaimTicketDTO claimTicketDTO = flashSaleClaimService.findTicket(ticketId.trim(), authHeaderUserId,
+					Math.min(Math.max(waitMs, 0), 30000));
+			if (claimTicketDTO == null) {
+				message = "Claim ticket not found: " + ticketId;
+				auditService.logAudit(auditDTO,404,message, authorizationHeader);
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).body(APIResponse.error(message));
+			}
+			// A ticket only changes by moving to another status, so pollers can revalidate on that alone.
+			String eTag = "W/\"" + claimTicketDTO.getStatus() + "\"";
+			if (webRequest.checkNotModified(eTag)) {
+				auditService.logAudit(auditDTO,304,"Claim ticket not modified.", authorizationHeader);
+				return null;
+			}
+			message = "Successfully retrieved the claim ticket.";
+			auditService.logAudit(auditDTO,200,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(APIResponse.success(claimTicketDTO, message));
+
+		} catch (Exception ex) {
+			logger.error("Calling get claim ticket API failed...");
+			message = "Unable to retrieve the claim ticket: " + ticketId;
+			auditDTO.setRemarks(ex.toString());
+			auditService.logAudit(auditDTO,400,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(APIResponse.error(message));
+		}
+	}
+	
 	@PostMapping(value = "/users", produces = "application/json")
 	public ResponseEntity<APIResponse<List<VoucherDTO>>> findAllClaimedVouchersByUserId(@RequestHeader("Authorization") String authorizationHeader,	@RequestBody VoucherRequest voucherRequest, @RequestParam(defaultValue = "") String status,
 			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "50") int size) throws JwtException, IllegalArgumentException, Exception {
@@ -260,28 +410,22 @@ public class VoucherController {
 	}
 
 	@PatchMapping(value = "/consume", produces = "application/json")
-	public ResponseEntity<APIResponse<VoucherDTO>> consumeVoucher(@RequestHeader("Authorization") String authorizationHeader, @RequestBody VoucherRequest voucherRequest) throws JwtException, IllegalArgumentException, Exception {
+	public ResponseEntity<APIResponse<VoucherDTO>> consumeVoucher(@RequestHeader("Authorization") String authorizationHeader,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey, @RequestBody VoucherRequest voucherRequest) throws JwtException, IllegalArgumentException, Exception {
 		String voucherId = GeneralUtility.makeNotNull(voucherRequest.getVoucherId()).trim();
+		String authHeaderUserId = jwtService.retrieveUserID(authorizationHeader);
+		return idempotencyService.execute("consume", authHeaderUserId, idempotencyKey, voucherId,
+				() -> processConsume(authorizationHeader, authHeaderUserId, voucherId));
+	}
 
+	private ResponseEntity<APIResponse<VoucherDTO>> processConsume(String authorizationHeader, String authHeaderUserId, String voucherId) {
 		logger.info("Calling Voucher consume API...");
 		
-		String authHeaderUserId = jwtService.retrieveUserID(authorizationHeader);
 		AuditDTO auditDTO = auditService.createAuditDTO(authHeaderUserId, "Consume Voucher", activityTypePrefix,"/api/core/vouchers/consume", HTTPVerb.PATCH);
         String message="";
 
 		try {
 
-			VoucherDTO voucherDTO = voucherService.findByVoucherId(voucherId);
-
-			if (voucherDTO != null && !voucherDTO.getVoucherStatus().equals(VoucherStatus.CLAIMED)) {
-				
-				logger.error("Voucher already consumed or not in a claimable state");
-				message ="Voucher has already been consumed.";
-				auditService.logAudit(auditDTO,401,message, authorizationHeader);
-				return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-						.body(APIResponse.error(message));
-			}
-
 			VoucherDTO updatedVoucherDTO = voucherService.consumeVoucher(voucherId);
 
 			if (updatedVoucherDTO.getVoucherStatus().equals(VoucherStatus.CONSUMED)) {
@@ -297,6 +441,12 @@ public class VoucherController {
 						.body(APIResponse.error(message));
 			}
 
+		} catch (VoucherAlreadyConsumedException ex) {
+			logger.error("Voucher already consumed or not in a claimable state");
+			message ="Voucher has already been consumed.";
+			auditService.logAudit(auditDTO,401,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+					.body(APIResponse.error(message));
 		} catch (Exception ex) {
 			logger.error("Exception during Voucher consume API call, Error");
 			HttpStatusCode htpStatuscode = ex instanceof VoucherNotFoundException ? HttpStatus.NOT_FOUND
@@ -310,5 +460,42 @@ public class VoucherController {
 		}
 	}
 
+	@PatchMapping(value = "/consume/batch", produces = "application/json")
+	public ResponseEntity<APIResponse<List<VoucherConsumeResult>>> consumeVouchers(@RequestHeader("Authorization") String authorizationHeader,
+			@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey, @RequestBody VoucherBatchConsumeRequest batchConsumeRequest) throws JwtException, IllegalArgumentException, Exception {
+		String authHeaderUserId = jwtService.retrieveUserID(authorizationHeader);
+		List<String> voucherIds = batchConsumeRequest.getVoucherIds() == null ? List.of()
+				: batchConsumeRequest.getVoucherIds().stream().map(id -> GeneralUtility.makeNotNull(id).trim()).toList();
+		return idempotencyService.execute("consume-batch", authHeaderUserId, idempotencyKey, String.join(",", voucherIds),
+				() -> processBatchConsume(authorizationHeader, authHeaderUserId, voucherIds));
+	}
+
+	private ResponseEntity<APIResponse<List<VoucherConsumeResult>>> processBatchConsume(String authorizationHeader, String authHeaderUserId, List<String> voucherIds) {
+		logger.info("Calling Voucher batch consume API...");
+
+		AuditDTO auditDTO = auditService.createAuditDTO(authHeaderUserId, "Batch Consume Voucher", activityTypePrefix,"/api/core/vouchers/consume/batch", HTTPVerb.PATCH);
+		String message = "";
+		try {
+			if (voucherIds.isEmpty() || voucherIds.size() > batchConsumeMaxVouchers) {
+				message = "Bad Request: Between 1 and " + batchConsumeMaxVouchers + " voucher IDs are required.";
+				auditService.logAudit(auditDTO,400,message, authorizationHeader);
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(APIResponse.error(message));
+			}
+
+			List<VoucherConsumeResult> results = voucherService.consumeVouchers(voucherIds);
+			long consumedCount = results.stream().filter(VoucherConsumeResult::isConsumed).count();
+			message = "Consumed " + consumedCount + " of " + results.size() + " vouchers.";
+			auditService.logAudit(auditDTO,200,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.OK).body(APIResponse.success(results, message, consumedCount));
+
+		} catch (Exception ex) {
+			logger.error("Exception during Voucher batch consume API call, Error");
+			message = "The attempt to consume the vouchers has been unsuccessful.";
+			auditDTO.setRemarks(ex.toString());
+			auditService.logAudit(auditDTO,500,message, authorizationHeader);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(APIResponse.error(message));
+		}
+	}
+
 
 }
@@ -27,6 +27,7 @@ public class CampaignDTO {
 	private LocalDateTime createdDate;
 	private LocalDateTime updatedDate;
     private int numberOfClaimedVouchers;
+    private int numberOfConsumedVouchers;
 
    
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package sg.edu.nus.iss.voucher.core.workflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class CampaignVoucherCount {
+	private String campaignId;
+	private int numberOfClaimedVouchers;
+	private int numberOfConsumedVouchers;
+	private long claimedVouchers;
+	private long consumedVouchers;
+
+}
@@ -0,0 +1,18 @@
+package sg.edu.nus.iss.voucher.core.workflow.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignVoucherStatusCount {
+	private String campaignId;
+	private VoucherStatus voucherStatus;
+	private long numberOfVouchers;
+
+}
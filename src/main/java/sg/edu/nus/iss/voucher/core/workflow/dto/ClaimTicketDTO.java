@@ -0,0 +1,22 @@
+package sg.edu.nus.iss.voucher.core.workflow.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+import lombok.Setter;
+import sg.edu.nus.iss.voucher.core.workflow.enums.ClaimTicketStatus;
+
+@Getter
+@Setter
+public class ClaimTicketDTO {
+
+	private String ticketId;
+	private String campaignId;
+	private String claimedBy;
+	private ClaimTicketStatus status = ClaimTicketStatus.QUEUED;
+	private String message;
+	private VoucherDTO voucher;
+	private LocalDateTime createdTime;
+	private LocalDateTime completedTime;
+
+}
@@ -0,0 +1,12 @@
+package sg.edu.nus.iss.voucher.core.workflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class VoucherBatchConsumeRequest {
+	  private List<String> voucherIds;
+}
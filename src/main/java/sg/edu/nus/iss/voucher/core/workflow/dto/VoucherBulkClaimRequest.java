@@ -0,0 +1,13 @@
+package sg.edu.nus.iss.voucher.core.workflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class VoucherBulkClaimRequest {
+	  private String claimedBy;
+	  private List<String> campaignIds;
+}
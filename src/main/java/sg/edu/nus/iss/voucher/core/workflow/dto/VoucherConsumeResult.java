@@ -0,0 +1,21 @@
+package sg.edu.nus.iss.voucher.core.workflow.dto;
+
+import org.springframework.http.HttpStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoucherConsumeResult {
+	private String voucherId;
+	private boolean consumed;
+	private String message;
+	private VoucherDTO voucher;
+	private HttpStatus status;
+
+}
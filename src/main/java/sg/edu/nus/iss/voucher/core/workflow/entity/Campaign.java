@@ -81,5 +81,23 @@ public class Campaign {
 	
 	@Column(nullable = false, columnDefinition = "boolean default false")
 	private boolean isDeleted;
+
+	// Only moved by CampaignRepository updates so a stale entity save can never roll it back.
+	@Column(nullable = false, updatable = false, columnDefinition = "int default 0")
+	private int numberOfClaimedVouchers = 0;
+
+	@Column(nullable = false, columnDefinition = "boolean default false")
+	private boolean preMintVouchers;
+
+	// Values above 1 spread claims over that many campaign_claim_counter rows.
+	@Column(nullable = false, columnDefinition = "int default 1")
+	private int claimCounterShards = 1;
+
+	// Claims are queued and answered with a ticket instead of being written on the request thread.
+	@Column(nullable = false, columnDefinition = "boolean default false")
+	private boolean flashSale;
+
+	@Column(nullable = false, updatable = false, columnDefinition = "int default 0")
+	private int numberOfConsumedVouchers = 0;
 	
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package sg.edu.nus.iss.voucher.core.workflow.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@IdClass(CampaignClaimCounterId.class)
+@Getter
+@Setter
+@AllArgsConstructor
+public class CampaignClaimCounter {
+
+	public CampaignClaimCounter() {
+		super();
+	}
+
+	@Id
+	private String campaignId;
+
+	@Id
+	private int shard;
+
+	@Column(nullable = false)
+	private int claimed;
+
+	@Column(nullable = false)
+	private int capacity;
+
+}
@@ -0,0 +1,24 @@
+package sg.edu.nus.iss.voucher.core.workflow.entity;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class CampaignClaimCounterId implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String campaignId;
+
+	private int shard;
+
+}
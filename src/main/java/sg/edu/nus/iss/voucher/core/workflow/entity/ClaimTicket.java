@@ -0,0 +1,59 @@
+package sg.edu.nus.iss.voucher.core.workflow.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import sg.edu.nus.iss.voucher.core.workflow.enums.ClaimTicketStatus;
+
+// Kept in the database so any replica can answer a poll for a ticket another replica issued.
+@Entity
+@Table(indexes = @Index(name = "idx_claim_ticket_status_created", columnList = "status, createdTime"))
+@Getter
+@Setter
+@AllArgsConstructor
+public class ClaimTicket {
+
+	public ClaimTicket() {
+		super();
+	}
+
+	@Id
+	private String ticketId;
+
+	@Column(nullable = false)
+	private String campaignId;
+
+	@Column(nullable = false)
+	private String claimedBy;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private ClaimTicketStatus status = ClaimTicketStatus.QUEUED;
+
+	@Column(nullable = true)
+	private String message;
+
+	@Column(nullable = true)
+	private String voucherId;
+
+	@Column(nullable = false, columnDefinition = "datetime")
+	private LocalDateTime createdTime;
+
+	@Column(nullable = true, columnDefinition = "datetime")
+	private LocalDateTime completedTime;
+
+	// Set when the stale-ticket sweep settled the ticket instead of its claim. The claim may still be running on
+	// another replica, so its own result replaces the sweep's.
+	@Column(nullable = false)
+	private boolean provisional;
+
+}
@@ -10,14 +10,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus;
 
 @Entity
+@Table(indexes = @Index(name = "idx_voucher_campaign_status", columnList = "campaignId, voucherStatus"),
+		uniqueConstraints = @UniqueConstraint(name = "uk_voucher_campaign_claimant", columnNames = { "campaignId", "claimedBy" }))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -45,7 +50,8 @@ public class Voucher {
 	@Column(nullable = true, columnDefinition = "datetime")
 	private LocalDateTime consumedTime;
 
-	@Column(nullable = false)
+	// Null while the voucher is still sitting unclaimed in a pre-minted pool.
+	@Column(nullable = true)
 	private String claimedBy;
 
 }
@@ -0,0 +1,5 @@
+package sg.edu.nus.iss.voucher.core.workflow.enums;
+
+public enum ClaimTicketStatus {
+	QUEUED, CLAIMED, FAILED
+}
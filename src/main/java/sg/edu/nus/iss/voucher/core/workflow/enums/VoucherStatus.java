@@ -1,5 +1,5 @@
 package sg.edu.nus.iss.voucher.core.workflow.enums;
 
 public enum VoucherStatus {
-	CLAIMED, EXPIRED, CONSUMED
+	CLAIMED, EXPIRED, CONSUMED, UNCLAIMED
 }
@@ -0,0 +1,9 @@
+package sg.edu.nus.iss.voucher.core.workflow.exception;
+
+public class ClaimOutcomeUnknownException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public ClaimOutcomeUnknownException(String message) {
+		super(message);
+	}
+}
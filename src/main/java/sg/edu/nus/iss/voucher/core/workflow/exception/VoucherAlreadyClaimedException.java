@@ -0,0 +1,9 @@
+package sg.edu.nus.iss.voucher.core.workflow.exception;
+
+public class VoucherAlreadyClaimedException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public VoucherAlreadyClaimedException(String message) {
+		super(message);
+	}
+}
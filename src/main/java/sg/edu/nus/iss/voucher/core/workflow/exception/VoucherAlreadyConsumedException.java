@@ -0,0 +1,9 @@
+package sg.edu.nus.iss.voucher.core.workflow.exception;
+
+public class VoucherAlreadyConsumedException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public VoucherAlreadyConsumedException(String message) {
+		super(message);
+	}
+}
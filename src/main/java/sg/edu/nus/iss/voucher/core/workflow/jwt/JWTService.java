@@ -1,12 +1,18 @@
 package sg.edu.nus.iss.voucher.core.workflow.jwt;
 
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.json.simple.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.*;
 import sg.edu.nus.iss.voucher.core.workflow.configuration.JWTConfig;
 import sg.edu.nus.iss.voucher.core.workflow.pojo.User;
@@ -28,20 +34,72 @@ public class JWTService {
 
 	private final JSONReader jsonReader;
 
-	public JWTService( JWTConfig jwtConfig,JSONReader jsonReader) {
+	private final TokenRevocationList tokenRevocationList;
+
+	private final boolean localClaimsEnabled;
+
+	private final long localClaimsMaxAgeMillis;
+
+	// Verified claims keyed by token hash, each kept only until the token's own expiry.
+	private final Cache<String, Claims> verifiedClaims;
+
+	private volatile JwtParser jwtParser;
+
+	public JWTService( JWTConfig jwtConfig,JSONReader jsonReader, TokenRevocationList tokenRevocationList,
+			@Value("${jwt.claims.cache.maximum.size:10000}") long claimsCacheMaximumSize,
+			@Value("${jwt.local.claims.enabled:false}") boolean localClaimsEnabled,
+			@Value("${jwt.local.claims.max.age.seconds:900}") long localClaimsMaxAgeSeconds) {
 		this.jwtConfig = jwtConfig;
 		this.jsonReader = jsonReader;
+		this.tokenRevocationList = tokenRevocationList;
+		this.localClaimsEnabled = localClaimsEnabled;
+		this.localClaimsMaxAgeMillis = TimeUnit.SECONDS.toMillis(localClaimsMaxAgeSeconds);
+		this.verifiedClaims = Caffeine.newBuilder().maximumSize(claimsCacheMaximumSize)
+				.expireAfter(new Expiry<String, Claims>() {
+					@Override
+					public long expireAfterCreate(String key, Claims claims, long currentTime) {
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(0,
+								claims.getExpiration().getTime() - System.currentTimeMillis()));
+					}
+
+					@Override
+					public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+						return expireAfterCreate(key, claims, currentTime);
+					}
+
+					@Override
+					public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				}).build();
 
 	}
 
 	public static final String USER_EMAIL = "userEmail";
 
+	public static final String USER_ROLE = "role";
+
 	public PublicKey loadPublicKey() throws Exception {
 		byte[] keyBytes = Base64.getDecoder().decode(jwtConfig.getJWTPubliceKey());
 		KeyFactory keyFactory = KeyFactory.getInstance("RSA");
 		return keyFactory.generatePublic(new X509EncodedKeySpec(keyBytes));
 	}
 
+	// Built on first use rather than at startup so a bad key only fails the requests that need it.
+	private JwtParser getJwtParser() throws Exception {
+		JwtParser parser = jwtParser;
+		if (parser == null) {
+			synchronized (this) {
+				parser = jwtParser;
+				if (parser == null) {
+					parser = Jwts.parser().verifyWith(loadPublicKey()).build();
+					jwtParser = parser;
+				}
+			}
+		}
+		return parser;
+	}
+
 	public String extractUserID(String token) throws JwtException, IllegalArgumentException, Exception {
 		// TODO Auto-generated method stub
 		return extractClaim(token, Claims::getSubject);
@@ -54,30 +112,81 @@ public class JWTService {
 	}
 
 	public Claims extractAllClaims(String token) throws JwtException, IllegalArgumentException, Exception {
-		return Jwts.parser().verifyWith(loadPublicKey()).build().parseSignedClaims(token).getPayload();
+		String tokenHash = hashWithSHA256(token);
+		Claims claims = verifiedClaims.getIfPresent(tokenHash);
+		if (claims != null) {
+			return claims;
+		}
+		claims = getJwtParser().parseSignedClaims(token).getPayload();
+		if (claims.getExpiration() != null) {
+			verifiedClaims.put(tokenHash, claims);
+		}
+		return claims;
 	}
 
 	public UserDetails getUserDetail(String authorizationHeader, String token)
 			throws JwtException, IllegalArgumentException, Exception {
-		String userID = extractUserID(token);
+		User user = findActiveUser(extractUserID(token), authorizationHeader);
+		return org.springframework.security.core.userdetails.User
+		        .withUsername(user.getEmail())
+		        .password(user.getPassword())
+		        .roles(user.getRole().toString())
+		        .build();
+	}
+
+	// Checks the already verified claims against the auth service once, for JwtFilter to publish to the request.
+	public JwtPrincipal authenticate(String authorizationHeader, Claims claims)
+			throws JwtException, IllegalArgumentException, Exception {
+		if (localClaimsEnabled) {
+			JwtPrincipal principal = principalFromClaims(claims);
+			if (principal != null) {
+				return principal;
+			}
+		}
+		User user = findActiveUser(claims.getSubject(), authorizationHeader);
+		String userEmail = claims.get(USER_EMAIL, String.class);
+		if (userEmail == null || !userEmail.equals(user.getEmail())) {
+			throw new JwtException("Invalid or expired JWT token");
+		}
+		return new JwtPrincipal(claims.getSubject(), userEmail, claims.get("userName", String.class), user.getRole());
+	}
+
+	// Trusts the signed claims alone while the token is recent enough and the user has not been revoked since.
+	private JwtPrincipal principalFromClaims(Claims claims) {
+		String userEmail = claims.get(USER_EMAIL, String.class);
+		String role = claims.get(USER_ROLE, String.class);
+		Date issuedAt = claims.getIssuedAt();
+		if (claims.getSubject() == null || userEmail == null || role == null || issuedAt == null
+				|| System.currentTimeMillis() - issuedAt.getTime() > localClaimsMaxAgeMillis
+				|| tokenRevocationList.isRevoked(claims.getSubject(), issuedAt)) {
+			return null;
+		}
+		return new JwtPrincipal(claims.getSubject(), userEmail, claims.get("userName", String.class), role);
+	}
 
+	private User findActiveUser(String userID, String authorizationHeader) throws Exception {
 		JSONObject userJSONObjet = jsonReader.getActiveUser(userID, authorizationHeader);
 		Boolean success = jsonReader.getSuccessFromResponse(userJSONObjet);
 		String message = jsonReader.getMessageFromResponse(userJSONObjet);
-		
-		
-		if (success) {
-		    User user = jsonReader.getUserObject(userJSONObjet);
-		    return org.springframework.security.core.userdetails.User
-		            .withUsername(user.getEmail())
-		            .password(user.getPassword())
-		            .roles(user.getRole().toString())
-		            .build();
+
+		if (Boolean.TRUE.equals(success)) {
+			return jsonReader.getUserObject(userJSONObjet);
+		} else if (Boolean.FALSE.equals(success)) {
+			tokenRevocationList.revoke(userID);
+			throw new Exception(message);
 		} else {
-		    throw new Exception(message);
+			throw new Exception("Unable to verify the active user.");
 		}
+	}
 
-		
+	// The principal JwtFilter already built for this request, as long as it came from the same header.
+	public JwtPrincipal currentPrincipal(String authorizationHeader) {
+		RequestSecurityContext context = RequestSecurityContext.current();
+		if (context != null && context.principal() != null
+				&& context.authorizationHeader().equals(authorizationHeader)) {
+			return context.principal();
+		}
+		return null;
 	}
 
 	public Boolean validateToken(String token, UserDetails userDetails)
@@ -106,6 +215,10 @@ public class JWTService {
 	}
 
 	public String retrieveUserID(String authorizationHeader) throws JwtException, IllegalArgumentException, Exception {
+		JwtPrincipal principal = currentPrincipal(authorizationHeader);
+		if (principal != null) {
+			return principal.userId();
+		}
 		try {
 			String token = authorizationHeader.substring(7);
 			Claims claims = extractAllClaims(token);
@@ -118,6 +231,10 @@ public class JWTService {
 	}
 
 	public String retrieveUserName(String token) throws JwtException, IllegalArgumentException, Exception {
+		JwtPrincipal principal = currentPrincipal("Bearer " + token);
+		if (principal != null) {
+			return principal.userName();
+		}
 		try {
 			Claims claims = extractAllClaims(token);
 			String userName = claims.get("userName", String.class);
@@ -131,6 +248,10 @@ public class JWTService {
 
 	public String getUserIdByAuthHeader(String authHeader) throws JwtException, IllegalArgumentException, Exception {
 		String userID = "";
+		JwtPrincipal principal = currentPrincipal(authHeader);
+		if (principal != null) {
+			return principal.userId();
+		}
 		String jwtToken = authHeader.substring(7); // Remove "Bearer " prefix
 		if (jwtToken != null) {
 			userID = extractUserID(jwtToken);
@@ -141,6 +262,10 @@ public class JWTService {
 
 	public String retrieveUserEmail(String authorizationHeader)
 			throws JwtException, IllegalArgumentException, Exception {
+		JwtPrincipal principal = currentPrincipal(authorizationHeader);
+		if (principal != null) {
+			return principal.email();
+		}
 		try {
 			String token = authorizationHeader.substring(7);
 			Claims claims = extractAllClaims(token);
@@ -2,8 +2,8 @@ package sg.edu.nus.iss.voucher.core.workflow.jwt;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -17,6 +17,7 @@ import sg.edu.nus.iss.voucher.core.workflow.enums.HTTPVerb;
 import sg.edu.nus.iss.voucher.core.workflow.service.impl.AuditService;
 
 import java.io.IOException;
+import java.util.List;
 
 import io.jsonwebtoken.*;
 
@@ -35,30 +36,21 @@ public class JwtFilter extends OncePerRequestFilter {
 	@Value("${audit.activity.type.prefix}")
 	String activityTypePrefix;
 
-	private String userID;
-	private String apiEndpoint;
-	private HTTPVerb httpMethod;
-	private String authorizationHeader;
-
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
 
-		authorizationHeader = request.getHeader("Authorization");
-		userID = "Invalid UserID";
-		apiEndpoint = request.getRequestURI();
-		httpMethod = HTTPVerb.fromString(request.getMethod());
-
-		httpMethod = HTTPVerb.fromString(request.getMethod());
-		String requestURI = request.getRequestURI();
+		RequestSecurityContext context = RequestSecurityContext.of(request);
+		context.bindTo(request);
 
-		if (requestURI.equalsIgnoreCase("/api/core/campaigns") && httpMethod.equals(HTTPVerb.GET)) {
+		if (context.apiEndpoint().equalsIgnoreCase("/api/core/campaigns") && context.httpMethod().equals(HTTPVerb.GET)) {
 			filterChain.doFilter(request, response);
 			return;
 		}
 
+		String authorizationHeader = context.authorizationHeader();
 		if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
-			handleException(response, "Authorization header is missing or invalid",
+			handleException(response, context, "Authorization header is missing or invalid",
 					HttpServletResponse.SC_UNAUTHORIZED);
 			return;
 		}
@@ -66,36 +58,37 @@ public class JwtFilter extends OncePerRequestFilter {
 		String jwtToken = authorizationHeader.substring(7);
 
 		try {
-			userID = jwtService.retrieveUserID(authorizationHeader);
-			
-			UserDetails userDetails = jwtService.getUserDetail(authorizationHeader, jwtToken);
-			if (jwtService.validateToken(jwtToken, userDetails)) {
-				UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-						userDetails, null, userDetails.getAuthorities());
-				authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-				SecurityContextHolder.getContext().setAuthentication(authentication);
-			} else {
-				handleException(response, "Invalid or expired JWT token", HttpServletResponse.SC_UNAUTHORIZED);
-				return;
-			}
+			Claims claims = jwtService.extractAllClaims(jwtToken);
+			context = context.withUserId(claims.getSubject());
+
+			JwtPrincipal principal = jwtService.authenticate(authorizationHeader, claims);
+			context = context.authenticated(principal);
+			context.bindTo(request);
+			UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal,
+					null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.role())));
+			authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+			SecurityContextHolder.getContext().setAuthentication(authentication);
 		} catch (ExpiredJwtException e) {
-			handleException(response, "JWT token is expired", HttpServletResponse.SC_UNAUTHORIZED);
+			handleException(response, context.withUserId(e.getClaims().getSubject()), "JWT token is expired",
+					HttpServletResponse.SC_UNAUTHORIZED);
 			return;
 		} catch (MalformedJwtException | SecurityException e) {
-			handleException(response, "Invalid JWT token", HttpServletResponse.SC_UNAUTHORIZED);
+			handleException(response, context, "Invalid JWT token", HttpServletResponse.SC_UNAUTHORIZED);
 			return;
 		} catch (Exception e) {
-			handleException(response, e.getMessage(), HttpServletResponse.SC_UNAUTHORIZED);
+			handleException(response, context, e.getMessage(), HttpServletResponse.SC_UNAUTHORIZED);
 			return;
 		}
 
 		filterChain.doFilter(request, response);
 	}
 
-	private void handleException(HttpServletResponse response, String message, int status) throws IOException {
+	private void handleException(HttpServletResponse response, RequestSecurityContext context, String message,
+			int status) throws IOException {
 		TokenErrorResponse.sendErrorResponse(response, message, status, "UnAuthorized");
-		AuditDTO auditDTO = auditLogService.createAuditDTO(userID, "", activityTypePrefix, apiEndpoint, httpMethod);
-		auditLogService.logAudit(auditDTO, status, message, authorizationHeader);
+		AuditDTO auditDTO = auditLogService.createAuditDTO(context.userId(), "", activityTypePrefix,
+				context.apiEndpoint(), context.httpMethod());
+		auditLogService.logAudit(auditDTO, status, message, context.authorizationHeader());
 	}
 
 }
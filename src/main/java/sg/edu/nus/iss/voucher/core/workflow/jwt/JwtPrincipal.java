@@ -0,0 +1,6 @@
+package sg.edu.nus.iss.voucher.core.workflow.jwt;
+
+// The caller JwtFilter authenticated for the current request, carried in its RequestSecurityContext.
+public record JwtPrincipal(String userId, String email, String userName, String role) {
+
+}
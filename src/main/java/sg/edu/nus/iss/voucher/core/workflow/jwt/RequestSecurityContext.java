@@ -0,0 +1,43 @@
+package sg.edu.nus.iss.voucher.core.workflow.jwt;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import jakarta.servlet.http.HttpServletRequest;
+import sg.edu.nus.iss.voucher.core.workflow.enums.HTTPVerb;
+
+// What JwtFilter knows about one request. Immutable, so it can be handed to async audit or notification work as is.
+public record RequestSecurityContext(String userId, String apiEndpoint, HTTPVerb httpMethod,
+		String authorizationHeader, JwtPrincipal principal) {
+
+	public static final String REQUEST_ATTRIBUTE = RequestSecurityContext.class.getName();
+
+	public static final String INVALID_USER_ID = "Invalid UserID";
+
+	public static RequestSecurityContext of(HttpServletRequest request) {
+		return new RequestSecurityContext(INVALID_USER_ID, request.getRequestURI(),
+				HTTPVerb.fromString(request.getMethod()), request.getHeader("Authorization"), null);
+	}
+
+	public static RequestSecurityContext current() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null
+				&& attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof RequestSecurityContext context) {
+			return context;
+		}
+		return null;
+	}
+
+	public RequestSecurityContext withUserId(String userId) {
+		return new RequestSecurityContext(userId, apiEndpoint, httpMethod, authorizationHeader, principal);
+	}
+
+	public RequestSecurityContext authenticated(JwtPrincipal principal) {
+		return new RequestSecurityContext(principal.userId(), apiEndpoint, httpMethod, authorizationHeader, principal);
+	}
+
+	public void bindTo(HttpServletRequest request) {
+		request.setAttribute(REQUEST_ATTRIBUTE, this);
+	}
+
+}
@@ -0,0 +1,43 @@
+package sg.edu.nus.iss.voucher.core.workflow.jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Users whose signed claims can no longer be trusted on their own. Their tokens go back to the auth service.
+@Component
+public class TokenRevocationList {
+
+	private final Set<String> revokedUserIds;
+
+	// Only needs to outlive the local-claims window, since older tokens are checked remotely anyway.
+	private final Cache<String, Instant> revokedSince;
+
+	public TokenRevocationList(@Value("${jwt.revoked.user.ids:}") List<String> revokedUserIds,
+			@Value("${jwt.local.claims.max.age.seconds:900}") long localClaimsMaxAgeSeconds) {
+		this.revokedUserIds = Set.copyOf(revokedUserIds);
+		this.revokedSince = Caffeine.newBuilder().maximumSize(100000)
+				.expireAfterWrite(Duration.ofSeconds(localClaimsMaxAgeSeconds)).build();
+	}
+
+	public void revoke(String userId) {
+		revokedSince.put(userId, Instant.now());
+	}
+
+	public boolean isRevoked(String userId, Date issuedAt) {
+		if (revokedUserIds.contains(userId)) {
+			return true;
+		}
+		Instant revokedAt = revokedSince.getIfPresent(userId);
+		return revokedAt != null && !issuedAt.toInstant().isAfter(revokedAt);
+	}
+
+}
@@ -0,0 +1,31 @@
+package sg.edu.nus.iss.voucher.core.workflow.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import sg.edu.nus.iss.voucher.core.workflow.entity.CampaignClaimCounter;
+import sg.edu.nus.iss.voucher.core.workflow.entity.CampaignClaimCounterId;
+
+@Repository
+public interface CampaignClaimCounterRepository extends JpaRepository<CampaignClaimCounter, CampaignClaimCounterId> {
+
+	List<CampaignClaimCounter> findByCampaignId(String campaignId);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT c FROM CampaignClaimCounter c WHERE c.campaignId = ?1 ORDER BY c.shard")
+	List<CampaignClaimCounter> lockByCampaignId(String campaignId);
+
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE CampaignClaimCounter c SET c.claimed = c.claimed + 1 WHERE c.campaignId = :campaignId AND c.shard = :shard AND c.claimed < c.capacity")
+	int reserveVoucher(@Param("campaignId") String campaignId, @Param("shard") int shard);
+
+}
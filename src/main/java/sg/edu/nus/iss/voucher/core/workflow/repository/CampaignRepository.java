@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import sg.edu.nus.iss.voucher.core.workflow.dto.CampaignVoucherCount;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
 import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
 
@@ -50,6 +51,39 @@ public interface CampaignRepository extends JpaRepository<Campaign, String> {
     int updateExpiredCampaigns(@Param("now") LocalDateTime now);
     
     List<Campaign>  findByEndDateBeforeAndCampaignStatusNot(LocalDateTime now,CampaignStatus status );
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Campaign c SET c.numberOfClaimedVouchers = c.numberOfClaimedVouchers + 1 WHERE c.campaignId = :campaignId AND c.numberOfClaimedVouchers < c.numberOfVouchers")
+    int reserveVoucher(@Param("campaignId") String campaignId);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Campaign c SET c.numberOfClaimedVouchers = c.numberOfClaimedVouchers + CAST(:count AS Integer) WHERE c.campaignId = :campaignId AND c.numberOfClaimedVouchers + CAST(:count AS Integer) <= c.numberOfVouchers")
+    int reserveVouchers(@Param("campaignId") String campaignId, @Param("count") int count);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Campaign c SET c.numberOfClaimedVouchers = c.numberOfClaimedVouchers + CAST(:count AS Integer) WHERE c.campaignId = :campaignId")
+    int addClaimedVouchers(@Param("campaignId") String campaignId, @Param("count") int count);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Campaign c SET c.numberOfConsumedVouchers = c.numberOfConsumedVouchers + CAST(:count AS Integer) WHERE c.campaignId = :campaignId")
+    int addConsumedVouchers(@Param("campaignId") String campaignId, @Param("count") int count);
+    
+    @Query("SELECT new sg.edu.nus.iss.voucher.core.workflow.dto.CampaignVoucherCount(c.campaignId, c.numberOfClaimedVouchers, c.numberOfConsumedVouchers, "
+    		+ "(SELECT COUNT(v) FROM Voucher v WHERE v.campaign = c AND v.voucherStatus <> sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.UNCLAIMED), "
+    		+ "(SELECT COUNT(v) FROM Voucher v WHERE v.campaign = c AND v.voucherStatus = sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.CONSUMED)) "
+    		+ "FROM Campaign c WHERE c.campaignStatus <> sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus.CREATED")
+    List<CampaignVoucherCount> findVoucherCounts();
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Campaign c SET c.numberOfClaimedVouchers = :claimed, c.numberOfConsumedVouchers = :consumed WHERE c.campaignId = :campaignId "
+    		+ "AND c.numberOfClaimedVouchers = :expectedClaimed AND c.numberOfConsumedVouchers = :expectedConsumed")
+    int correctVoucherCounts(@Param("campaignId") String campaignId, @Param("expectedClaimed") int expectedClaimed,
+    		@Param("expectedConsumed") int expectedConsumed, @Param("claimed") int claimed, @Param("consumed") int consumed);
 
 
 }
\ No newline at end of file
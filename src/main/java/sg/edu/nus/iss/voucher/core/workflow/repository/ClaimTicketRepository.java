@@ -0,0 +1,46 @@
+package sg.edu.nus.iss.voucher.core.workflow.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import sg.edu.nus.iss.voucher.core.workflow.entity.ClaimTicket;
+import sg.edu.nus.iss.voucher.core.workflow.enums.ClaimTicketStatus;
+
+@Repository
+public interface ClaimTicketRepository extends JpaRepository<ClaimTicket, String> {
+
+	// Only a queued or provisionally settled ticket is completed, so a late result never overwrites a real one.
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE ClaimTicket t SET t.status = :status, t.message = :message, t.voucherId = :voucherId, t.completedTime = :completedTime, "
+			+ "t.provisional = false WHERE t.ticketId = :ticketId "
+			+ "AND (t.status = sg.edu.nus.iss.voucher.core.workflow.enums.ClaimTicketStatus.QUEUED OR t.provisional = true)")
+	int completeTicket(@Param("ticketId") String ticketId, @Param("status") ClaimTicketStatus status,
+			@Param("message") String message, @Param("voucherId") String voucherId,
+			@Param("completedTime") LocalDateTime completedTime);
+
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE ClaimTicket t SET t.status = :status, t.message = :message, t.voucherId = :voucherId, t.completedTime = :completedTime, "
+			+ "t.provisional = true WHERE t.ticketId = :ticketId "
+			+ "AND t.status = sg.edu.nus.iss.voucher.core.workflow.enums.ClaimTicketStatus.QUEUED")
+	int settleStaleTicket(@Param("ticketId") String ticketId, @Param("status") ClaimTicketStatus status,
+			@Param("message") String message, @Param("voucherId") String voucherId,
+			@Param("completedTime") LocalDateTime completedTime);
+
+	@Query("SELECT t FROM ClaimTicket t WHERE t.status = sg.edu.nus.iss.voucher.core.workflow.enums.ClaimTicketStatus.QUEUED AND t.createdTime < ?1")
+	List<ClaimTicket> findQueuedCreatedBefore(LocalDateTime createdBefore);
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM ClaimTicket t WHERE t.completedTime < ?1")
+	int deleteCompletedBefore(LocalDateTime completedBefore);
+
+}
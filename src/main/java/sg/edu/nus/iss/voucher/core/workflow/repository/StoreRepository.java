@@ -1,5 +1,6 @@
 package sg.edu.nus.iss.voucher.core.workflow.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -26,6 +27,8 @@ public interface StoreRepository extends JpaRepository<Store, String> {
 	
 	@Query("SELECT s FROM Store s WHERE s.storeName LIKE %?1% AND s.isDeleted = ?2")
 	Page<Store> searchStoresByKeyword(String storeName, boolean isDeleted, Pageable pageable);
-
+	
+	@Query("SELECT MAX(COALESCE(s.updatedDate, s.createdDate)) FROM Store s")
+	LocalDateTime findLastModifiedDate();
 	
 }
@@ -0,0 +1,55 @@
+package sg.edu.nus.iss.voucher.core.workflow.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus;
+
+@Repository
+public class VoucherPoolRepository {
+
+	private static final Logger logger = LoggerFactory.getLogger(VoucherPoolRepository.class);
+
+	private static final int BATCH_SIZE = 1000;
+
+	private static final String COUNT_VOUCHERS_SQL = "SELECT COUNT(*) FROM voucher WHERE campaign_id = ?";
+
+	private static final String INSERT_UNCLAIMED_VOUCHER_SQL = "INSERT INTO voucher (voucher_id, campaign_id, voucher_status) VALUES (?, ?, ?)";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Tops the campaign up to numberOfVouchers rows, so re-running after a failed promote does not double the pool.
+	@Transactional
+	public int mintVouchers(String campaignId, int numberOfVouchers) {
+		Integer existing = jdbcTemplate.queryForObject(COUNT_VOUCHERS_SQL, Integer.class, campaignId);
+		int toMint = numberOfVouchers - (existing == null ? 0 : existing);
+		if (toMint <= 0) {
+			logger.info("Voucher pool for campaign {} already holds {} vouchers...", campaignId, existing);
+			return 0;
+		}
+
+		List<String> voucherIds = new ArrayList<>(toMint);
+		for (int i = 0; i < toMint; i++) {
+			voucherIds.add(UUID.randomUUID().toString());
+		}
+
+		logger.info("Minting {} vouchers for campaign {}...", toMint, campaignId);
+		jdbcTemplate.batchUpdate(INSERT_UNCLAIMED_VOUCHER_SQL, voucherIds, BATCH_SIZE, (ps, voucherId) -> {
+			ps.setString(1, voucherId);
+			ps.setString(2, campaignId);
+			ps.setString(3, VoucherStatus.UNCLAIMED.name());
+		});
+		logger.info("Minted successfully...");
+		return toMint;
+	}
+
+}
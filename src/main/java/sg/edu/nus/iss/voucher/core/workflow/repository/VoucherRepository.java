@@ -1,13 +1,22 @@
 package sg.edu.nus.iss.voucher.core.workflow.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.LockModeType;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.CampaignVoucherStatusCount;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Voucher;
 import sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus;
@@ -18,12 +27,54 @@ public interface VoucherRepository extends JpaRepository<Voucher, String> {
 	@Query("SELECT v FROM Voucher v WHERE v.campaign= ?1 AND v.claimedBy = ?2")
 	Voucher findByCampaignAndClaimedBy(Campaign campaign, String claimedBy);
 
+	@Query("SELECT v FROM Voucher v WHERE v.campaign.campaignId = ?1 AND v.voucherStatus <> sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.UNCLAIMED")
 	List<Voucher> findByCampaignCampaignId(String campaignId);
 	
 	Page<Voucher> findByClaimedByAndVoucherStatus(String claimedBy, VoucherStatus voucherStatus,Pageable pageable);
 
+	@Query("SELECT v FROM Voucher v WHERE v.campaign.campaignId = ?1 AND v.voucherStatus <> sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.UNCLAIMED")
 	Page<Voucher> findByCampaignCampaignId(String campaignId, Pageable pageable);
 	
 	Page<Voucher> findByClaimedBy(String claimedBy, Pageable pageable);
+	
+	@Query(value = "SELECT voucher_id FROM voucher WHERE campaign_id = ?1 AND voucher_status = 'UNCLAIMED' LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+	String lockUnclaimedVoucherId(String campaignId);
+	
+	@Query(value = "SELECT voucher_id FROM voucher WHERE campaign_id = ?1 AND voucher_status = 'UNCLAIMED' LIMIT ?2 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+	List<String> lockUnclaimedVoucherIds(String campaignId, int limit);
+	
+	@Query("SELECT v.claimedBy FROM Voucher v WHERE v.campaign.campaignId = ?1 AND v.claimedBy IN ?2")
+	List<String> findClaimantsByCampaignId(String campaignId, Collection<String> claimedBy);
+	
+	@Query("SELECT v.campaign.campaignId FROM Voucher v WHERE v.claimedBy = ?1 AND v.campaign.campaignId IN ?2")
+	List<String> findClaimedCampaignIds(String claimedBy, Collection<String> campaignIds);
+	
+	@Query("SELECT v.claimedBy FROM Voucher v WHERE v.campaign.campaignId = ?1 AND v.claimedBy IS NOT NULL")
+	List<String> findAllClaimantsByCampaignId(String campaignId);
+	
+	boolean existsByCampaignCampaignIdAndClaimedBy(String campaignId, String claimedBy);
+	
+	Voucher findByCampaignCampaignIdAndClaimedBy(String campaignId, String claimedBy);
+	
+	@Query("SELECT COUNT(v) FROM Voucher v WHERE v.campaign.campaignId = ?1 AND v.voucherStatus <> sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.UNCLAIMED")
+	int countClaimedByCampaignId(String campaignId);
+	
+	@Query("SELECT new sg.edu.nus.iss.voucher.core.workflow.dto.CampaignVoucherStatusCount(v.campaign.campaignId, v.voucherStatus, COUNT(v)) "
+			+ "FROM Voucher v WHERE v.campaign.campaignId IN ?1 GROUP BY v.campaign.campaignId, v.voucherStatus")
+	List<CampaignVoucherStatusCount> countByCampaignIdInGroupByStatus(Collection<String> campaignIds);
+	
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Voucher v SET v.voucherStatus = sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.CONSUMED, v.consumedTime = :consumedTime WHERE v.voucherId = :voucherId AND v.voucherStatus = sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.CLAIMED")
+	int consumeVoucher(@Param("voucherId") String voucherId, @Param("consumedTime") LocalDateTime consumedTime);
+	
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Voucher v SET v.voucherStatus = sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.CONSUMED, v.consumedTime = :consumedTime WHERE v.voucherId IN :voucherIds AND v.voucherStatus = sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus.CLAIMED")
+	int consumeVouchers(@Param("voucherIds") Collection<String> voucherIds, @Param("consumedTime") LocalDateTime consumedTime);
+	
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT v FROM Voucher v WHERE v.voucherId IN ?1")
+	List<Voucher> lockByVoucherIdIn(Collection<String> voucherIds);
 
 }
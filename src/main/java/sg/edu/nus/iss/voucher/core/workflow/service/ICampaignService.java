@@ -13,6 +13,8 @@ public interface ICampaignService {
 
 	Map<Long, List<CampaignDTO>> findAllActiveCampaigns(String description,Pageable pageable);
 
+	long findActiveCatalogVersion();
+
 	Map<Long, List<CampaignDTO>> findAllCampaignsByStoreId(String storeId,String description, Pageable pageable);
 
 	Map<Long, List<CampaignDTO>> findAllCampaignsByUserId(String userId,String description, Pageable pageable);
@@ -26,6 +28,8 @@ public interface ICampaignService {
 	CampaignDTO promote(String campaignId,String userId,String authorizationHeader);
 
 	int expired();
+	
+	int reconcileVoucherCounters();
 
 	List<Campaign> findByDescription(String description);
 
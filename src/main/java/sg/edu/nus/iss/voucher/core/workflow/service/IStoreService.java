@@ -1,5 +1,6 @@
 package sg.edu.nus.iss.voucher.core.workflow.service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -24,4 +25,8 @@ public interface IStoreService {
 	Map<Long, List<StoreDTO>> findActiveStoreListByUserId(String createdBy, boolean isDeleted,Pageable pageable);
 	
 	StoreDTO updateStore(Store store, MultipartFile uploadFile) throws Exception;
+	
+	LocalDateTime findLastModifiedDate();
+	
+	long countStores();
 }
@@ -5,6 +5,8 @@ import java.util.Map;
 
 import org.springframework.data.domain.Pageable;
 
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherClaimResult;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherConsumeResult;
 import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherDTO;
 import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherRequest;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
@@ -21,9 +23,15 @@ public interface IVoucherService {
 	 
 	 VoucherDTO claimVoucher(VoucherRequest voucherRequest) throws Exception;
 	 
+	 List<VoucherClaimResult> claimVouchers(String campaignId, List<String> claimants);
+	 
+	 List<VoucherClaimResult> claimVouchersForUser(String claimedBy, List<String> campaignIds);
+	 
 	 Map<Long, List<VoucherDTO>> findByClaimedByAndVoucherStatus(String claimedBy,String status,Pageable pageable);
 
 	 Map<Long, List<VoucherDTO>> findAllClaimedVouchersByCampaignId(String campaignId,Pageable pageable);
 	 
 	 VoucherDTO consumeVoucher(String voucherId);
+	 
+	 List<VoucherConsumeResult> consumeVouchers(List<String> voucherIds);
 }
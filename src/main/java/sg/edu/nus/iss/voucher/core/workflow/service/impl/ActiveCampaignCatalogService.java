@@ -0,0 +1,103 @@
+package sg.edu.nus.iss.voucher.core.workflow.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import sg.edu.nus.iss.voucher.core.workflow.dto.CampaignDTO;
+import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
+import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
+import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignRepository;
+import sg.edu.nus.iss.voucher.core.workflow.utility.DTOMapper;
+
+// Immutable copy of every PROMOTED campaign, sorted by start date. Readers never lock; writers rebuild and swap it.
+@Service
+public class ActiveCampaignCatalogService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ActiveCampaignCatalogService.class);
+
+	@Autowired
+	private CampaignRepository campaignRepository;
+
+	private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+	private long version;
+
+	private record Snapshot(CampaignDTO[] campaigns, String[] descriptions, long version) {
+	}
+
+	public ActiveCampaignCatalogService(MeterRegistry meterRegistry) {
+		Gauge.builder("campaign.catalog.size", snapshot, ref -> ref.get() == null ? 0 : ref.get().campaigns().length)
+				.register(meterRegistry);
+		Gauge.builder("campaign.catalog.version", snapshot, ref -> ref.get() == null ? 0 : ref.get().version())
+				.register(meterRegistry);
+	}
+
+	// Matches the LIKE %description% search the repository used, without its case sensitivity depending on collation.
+	public Map<Long, List<CampaignDTO>> findActiveCampaigns(String description, Pageable pageable) {
+		Snapshot current = snapshot.get();
+		if (current == null) {
+			current = rebuild();
+		}
+
+		String search = description.toLowerCase(Locale.ROOT);
+		List<CampaignDTO> campaignDTOList = new ArrayList<>();
+		long offset = pageable.getOffset();
+		long totalRecord = 0;
+		for (int i = 0; i < current.campaigns().length; i++) {
+			if (!search.isEmpty() && !current.descriptions()[i].contains(search)) {
+				continue;
+			}
+			if (totalRecord >= offset && campaignDTOList.size() < pageable.getPageSize()) {
+				campaignDTOList.add(current.campaigns()[i]);
+			}
+			totalRecord++;
+		}
+		return Map.of(totalRecord, List.copyOf(campaignDTOList));
+	}
+
+	public long version() {
+		Snapshot current = snapshot.get();
+		return current == null ? 0 : current.version();
+	}
+
+	public void refresh() {
+		rebuild();
+	}
+
+	// Serialised so a slower rebuild can never swap in an older view over a newer one.
+	private synchronized Snapshot rebuild() {
+		List<Campaign> campaigns = campaignRepository.findByCampaignStatusIn(Arrays.asList(CampaignStatus.PROMOTED));
+		CampaignDTO[] campaignDTOs = new CampaignDTO[campaigns.size()];
+		for (int i = 0; i < campaigns.size(); i++) {
+			campaignDTOs[i] = DTOMapper.toCampaignDTO(campaigns.get(i));
+		}
+		Arrays.sort(campaignDTOs, Comparator.comparing(CampaignDTO::getStartDate,
+				Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())));
+
+		String[] descriptions = new String[campaignDTOs.length];
+		for (int i = 0; i < campaignDTOs.length; i++) {
+			String campaignDescription = campaignDTOs[i].getDescription();
+			descriptions[i] = campaignDescription == null ? "" : campaignDescription.toLowerCase(Locale.ROOT);
+		}
+
+		Snapshot rebuilt = new Snapshot(campaignDTOs, descriptions, ++version);
+		snapshot.set(rebuilt);
+		logger.info("Active campaign catalog version {} holds {} campaigns...", rebuilt.version(), campaignDTOs.length);
+		return rebuilt;
+	}
+
+}
@@ -0,0 +1,112 @@
+package sg.edu.nus.iss.voucher.core.workflow.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import sg.edu.nus.iss.voucher.core.workflow.dto.APIResponse;
+import sg.edu.nus.iss.voucher.core.workflow.dto.CampaignDTO;
+
+// Serialised active-campaign pages, plain and gzipped, for the catalog version they were built from.
+@Component
+public class ActiveCampaignResponseCache {
+
+	@Autowired
+	private CampaignService campaignService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final Cache<PageKey, CachedResponse> responses;
+
+	private record PageKey(long version, String description, int page, int size) {
+	}
+
+	public record CachedResponse(String message, long totalRecord, byte[] json, byte[] gzip, String etag) {
+	}
+
+	public ActiveCampaignResponseCache(@Value("${campaign.catalog.response.cache.maximum.size:500}") long maximumSize,
+			MeterRegistry meterRegistry) {
+		this.responses = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterAccess(Duration.ofMinutes(10))
+				.recordStats().build();
+		CaffeineCacheMetrics.monitor(meterRegistry, responses, "activeCampaignResponses");
+	}
+
+	// Only cached if the catalog was not swapped while the page was built, so the bytes always match the version.
+	public CachedResponse get(String description, Pageable pageable, Supplier<APIResponse<List<CampaignDTO>>> loader)
+			throws IOException {
+		long version = campaignService.findActiveCatalogVersion();
+		PageKey key = new PageKey(version, description, pageable.getPageNumber(), pageable.getPageSize());
+		CachedResponse cached = responses.getIfPresent(key);
+		if (cached != null) {
+			return cached;
+		}
+
+		APIResponse<List<CampaignDTO>> response = loader.get();
+		byte[] json = objectMapper.writeValueAsBytes(response);
+		CachedResponse built = new CachedResponse(response.getMessage(), response.getTotalRecord(), json, gzip(json),
+				etag(json));
+		if (version != 0 && version == campaignService.findActiveCatalogVersion()) {
+			responses.put(key, built);
+		}
+		return built;
+	}
+
+	public ResponseEntity<byte[]> toResponseEntity(CachedResponse response, String acceptEncoding) {
+		ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (acceptsGzip(acceptEncoding)) {
+			return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").eTag(eTag(response, acceptEncoding))
+					.body(response.gzip());
+		}
+		return builder.eTag(eTag(response, acceptEncoding)).body(response.json());
+	}
+
+	public String eTag(CachedResponse response, String acceptEncoding) {
+		return acceptsGzip(acceptEncoding) ? response.etag() + "-gz" : response.etag();
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		return acceptEncoding != null && acceptEncoding.contains("gzip");
+	}
+
+	private static byte[] gzip(byte[] json) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+			gzip.write(json);
+		}
+		return bytes.toByteArray();
+	}
+
+	// A digest of the body rather than the version number, since each replica numbers its own catalog versions.
+	private static String etag(byte[] json) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+package sg.edu.nus.iss.voucher.core.workflow.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
+import sg.edu.nus.iss.voucher.core.workflow.entity.CampaignClaimCounter;
+import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignClaimCounterRepository;
+import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignRepository;
+
+@Service
+public class CampaignClaimCounterService {
+
+	private static final Logger logger = LoggerFactory.getLogger(CampaignClaimCounterService.class);
+	private static final Object PENDING_CLAIMS_KEY = new Object();
+
+	@Autowired
+	private CampaignClaimCounterRepository claimCounterRepository;
+
+	@Autowired
+	private CampaignRepository campaignRepository;
+
+	private final TransactionTemplate requiresNewTransaction;
+
+	public CampaignClaimCounterService(PlatformTransactionManager transactionManager) {
+		this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+		this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	public boolean isSharded(Campaign campaign) {
+		return campaign.getClaimCounterShards() > 1;
+	}
+
+	// Reserves one claim slot. Campaigns without shard rows yet fall back to the counter on Campaign.
+	public boolean reserveVoucher(Campaign campaign) {
+		String campaignId = campaign.getCampaignId();
+		List<CampaignClaimCounter> shards = isSharded(campaign) ? claimCounterRepository.findByCampaignId(campaignId)
+				: Collections.emptyList();
+		if (shards.isEmpty()) {
+			return campaignRepository.reserveVoucher(campaignId) > 0;
+		}
+
+		List<CampaignClaimCounter> openShards = new ArrayList<>();
+		for (CampaignClaimCounter shard : shards) {
+			if (shard.getClaimed() < shard.getCapacity()) {
+				openShards.add(shard);
+			}
+		}
+		Collections.shuffle(openShards);
+
+		for (CampaignClaimCounter shard : openShards) {
+			if (claimCounterRepository.reserveVoucher(campaignId, shard.getShard()) > 0) {
+				logger.info("Reserved voucher on shard {} of campaign {}...", shard.getShard(), campaignId);
+				if (shard.getClaimed() + 1 >= shard.getCapacity() && openShards.size() > 1) {
+					rebalanceAfterCommit(campaignId, campaign.getNumberOfVouchers());
+				}
+				recordClaims(campaignId, 1);
+				return true;
+			}
+		}
+		logger.info("No shard of campaign {} has capacity left.", campaignId);
+		return false;
+	}
+
+	// Returns how many of count slots were reserved. While an unsharded campaign has room for the whole batch, one
+	// conditional UPDATE takes it; otherwise slots are reserved one at a time until the campaign runs out.
+	public int reserveVouchers(Campaign campaign, int count) {
+		if (count > 1 && !isSharded(campaign) && campaignRepository.reserveVouchers(campaign.getCampaignId(), count) > 0) {
+			return count;
+		}
+		int reserved = 0;
+		while (reserved < count && reserveVoucher(campaign)) {
+			reserved++;
+		}
+		return reserved;
+	}
+
+	public int claimedVouchers(Campaign campaign) {
+		if (!isSharded(campaign)) {
+			return campaign.getNumberOfClaimedVouchers();
+		}
+		List<CampaignClaimCounter> shards = claimCounterRepository.findByCampaignId(campaign.getCampaignId());
+		if (shards.isEmpty()) {
+			return campaign.getNumberOfClaimedVouchers();
+		}
+		int claimed = 0;
+		for (CampaignClaimCounter shard : shards) {
+			claimed += shard.getClaimed();
+		}
+		return claimed;
+	}
+
+	// Keeps Campaign.numberOfClaimedVouchers current for claims that did not reserve on it (shards, pre-minted pool).
+	// The increments are summed per campaign and applied after commit, so the claim never waits on the campaign row.
+	public void recordClaims(String campaignId, int count) {
+		if (count == 0) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			campaignRepository.addClaimedVouchers(campaignId, count);
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, Integer> pending = (Map<String, Integer>) TransactionSynchronizationManager
+				.getResource(PENDING_CLAIMS_KEY);
+		if (pending == null) {
+			Map<String, Integer> claims = new HashMap<>();
+			TransactionSynchronizationManager.bindResource(PENDING_CLAIMS_KEY, claims);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				// The claim's transaction has already committed, so each update needs a transaction of its own.
+				@Override
+				public void afterCommit() {
+					claims.forEach((id, claimed) -> {
+						try {
+							requiresNewTransaction
+									.executeWithoutResult(status -> campaignRepository.addClaimedVouchers(id, claimed));
+						} catch (Exception ex) {
+							logger.error("Updating claimed vouchers of campaign {} exception... {}", id, ex.toString());
+						}
+					});
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_CLAIMS_KEY);
+				}
+			});
+			pending = claims;
+		}
+		pending.merge(campaignId, count, Integer::sum);
+	}
+
+	// Claims already taken on the campaign counter are carried over into shard 0.
+	@Transactional
+	public void initialiseShards(Campaign campaign) {
+		String campaignId = campaign.getCampaignId();
+		List<CampaignClaimCounter> shards = claimCounterRepository.lockByCampaignId(campaignId);
+		if (shards.isEmpty()) {
+			for (int i = 0; i < campaign.getClaimCounterShards(); i++) {
+				shards.add(new CampaignClaimCounter(campaignId, i, i == 0 ? campaign.getNumberOfClaimedVouchers() : 0, 0));
+			}
+		}
+		spreadCapacity(campaign.getNumberOfVouchers(), shards);
+		claimCounterRepository.saveAll(shards);
+		logger.info("Initialised {} claim counter shards for campaign {}...", shards.size(), campaignId);
+	}
+
+	public void rebalance(String campaignId, int numberOfVouchers) {
+		requiresNewTransaction.executeWithoutResult(status -> {
+			List<CampaignClaimCounter> shards = claimCounterRepository.lockByCampaignId(campaignId);
+			if (shards.isEmpty()) {
+				return;
+			}
+			spreadCapacity(numberOfVouchers, shards);
+			claimCounterRepository.saveAll(shards);
+			logger.info("Rebalanced claim counter shards for campaign {}...", campaignId);
+		});
+	}
+
+	// Runs once the claim has committed so the shard lock it holds is not waited on by the rebalance.
+	private void rebalanceAfterCommit(String campaignId, int numberOfVouchers) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			rebalance(campaignId, numberOfVouchers);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				try {
+					rebalance(campaignId, numberOfVouchers);
+				} catch (Exception ex) {
+					logger.error("Rebalancing claim counter shards exception... {}", ex.toString());
+				}
+			}
+		});
+	}
+
+	// Splits whatever is still unclaimed evenly, so a drained shard gets room again and no shard is left hot.
+	static void spreadCapacity(int numberOfVouchers, List<CampaignClaimCounter> shards) {
+		int claimed = 0;
+		for (CampaignClaimCounter shard : shards) {
+			claimed += shard.getClaimed();
+		}
+		int remaining = Math.max(0, numberOfVouchers - claimed);
+		int share = remaining / shards.size();
+		int extra = remaining % shards.size();
+		for (int i = 0; i < shards.size(); i++) {
+			CampaignClaimCounter shard = shards.get(i);
+			shard.setCapacity(shard.getClaimed() + share + (i < extra ? 1 : 0));
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+package sg.edu.nus.iss.voucher.core.workflow.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherClaimResult;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherDTO;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherRequest;
+import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignFullyClaimedException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.ClaimOutcomeUnknownException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyClaimedException;
+
+// Single writer per campaign: claims are grouped into one insert batch and one commit.
+@Service
+public class ClaimSequencer {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClaimSequencer.class);
+
+	@Autowired
+	private VoucherService voucherService;
+
+	@Value("${claim.sequencer.queue.capacity:10000}")
+	private int queueCapacity;
+
+	@Value("${claim.sequencer.batch.size:100}")
+	private int batchSize;
+
+	@Value("${claim.sequencer.linger.ms:5}")
+	private long lingerMillis;
+
+	@Value("${claim.group.commit.timeout.ms:10000}")
+	private long timeoutMillis;
+
+	@Value("${claim.sequencer.threads:8}")
+	private int sequencerThreads;
+
+	// Only campaigns with claims waiting or in flight have a queue; a queue is removed once a drain leaves it empty.
+	private final Map<String, CampaignClaimQueue> queues = new ConcurrentHashMap<>();
+	private ThreadPoolExecutor sequencers;
+
+	@PostConstruct
+	public void start() {
+		sequencers = new ThreadPoolExecutor(sequencerThreads, sequencerThreads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "claim-sequencer");
+					thread.setDaemon(true);
+					return thread;
+				});
+		sequencers.allowCoreThreadTimeOut(true);
+	}
+
+	// Returns null when the campaign's queue is full.
+	public CompletableFuture<VoucherClaimResult> submit(String campaignId, String claimedBy) {
+		PendingClaim pendingClaim = enqueue(campaignId, claimedBy);
+		return pendingClaim == null ? null : pendingClaim.result;
+	}
+
+	// Blocks the caller until the group holding its claim has committed.
+	public VoucherDTO claimVoucher(VoucherRequest voucherRequest) throws Exception {
+		String campaignId = voucherRequest.getCampaignId();
+		PendingClaim pendingClaim = enqueue(campaignId, voucherRequest.getClaimedBy());
+		if (pendingClaim == null) {
+			throw new Exception("Too many claims are waiting for campaign: " + campaignId);
+		}
+
+		VoucherClaimResult result;
+		try {
+			result = pendingClaim.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ex) {
+			throw ex.getCause() instanceof Exception cause ? cause : ex;
+		} catch (TimeoutException ex) {
+			// A claim still in the queue is taken out so it can never commit. One already drained may still commit.
+			if (pendingClaim.claimQueue.queue.remove(pendingClaim)) {
+				throw new Exception("Claim for campaign " + campaignId + " timed out before it was processed.");
+			}
+			throw new ClaimOutcomeUnknownException("Claim for campaign " + campaignId + " is still being processed.");
+		}
+		if (result.isClaimed()) {
+			return result.getVoucher();
+		}
+		if (result.getStatus() == HttpStatus.UNAUTHORIZED) {
+			throw new CampaignFullyClaimedException("Campaign has been fully claimed: " + campaignId);
+		}
+		if (result.getStatus() == HttpStatus.BAD_REQUEST) {
+			throw new VoucherAlreadyClaimedException("Voucher has already been claimed: " + campaignId);
+		}
+		throw new Exception(result.getMessage());
+	}
+
+	private PendingClaim enqueue(String campaignId, String claimedBy) {
+		CampaignClaimQueue claimQueue = queues.computeIfAbsent(campaignId, CampaignClaimQueue::new);
+		PendingClaim pendingClaim = new PendingClaim(claimQueue, claimedBy);
+		if (!claimQueue.queue.offer(pendingClaim)) {
+			logger.error("Claim queue for campaign {} is full.", campaignId);
+			return null;
+		}
+		scheduleDrain(claimQueue);
+		return pendingClaim;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		sequencers.shutdown();
+	}
+
+	private void scheduleDrain(CampaignClaimQueue claimQueue) {
+		if (claimQueue.draining.compareAndSet(false, true)) {
+			sequencers.execute(() -> drain(claimQueue));
+		}
+	}
+
+	// Claims one batch, then goes to the back of the executor's queue so busy campaigns take turns on the threads.
+	private void drain(CampaignClaimQueue claimQueue) {
+		try {
+			List<PendingClaim> batch = new ArrayList<>(batchSize);
+			if (claimQueue.queue.drainTo(batch, batchSize) > 0) {
+				linger(claimQueue, batch);
+				claimBatch(claimQueue.campaignId, batch);
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			claimQueue.draining.set(false);
+		}
+		if (claimQueue.queue.isEmpty()) {
+			// A claim offered to this queue after it is removed still schedules its own drain.
+			queues.remove(claimQueue.campaignId, claimQueue);
+		}
+		if (!claimQueue.queue.isEmpty()) {
+			scheduleDrain(claimQueue);
+		}
+	}
+
+	// Holds a part-filled batch open for up to lingerMillis so claims arriving together share a commit.
+	private void linger(CampaignClaimQueue claimQueue, List<PendingClaim> batch) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+		while (batch.size() < batchSize) {
+			PendingClaim next = claimQueue.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+			if (next == null) {
+				return;
+			}
+			batch.add(next);
+			claimQueue.queue.drainTo(batch, batchSize - batch.size());
+		}
+	}
+
+	// A failed group is replayed one claim at a time so only the claim that caused it sees the error. A duplicate that
+	// only the unique key caught becomes an already-claimed result.
+	private void claimBatch(String campaignId, List<PendingClaim> batch) {
+		List<String> claimants = new ArrayList<>(batch.size());
+		for (PendingClaim pendingClaim : batch) {
+			claimants.add(pendingClaim.claimedBy);
+		}
+		try {
+			List<VoucherClaimResult> results = voucherService.claimVouchers(campaignId, claimants);
+			for (int i = 0; i < batch.size(); i++) {
+				batch.get(i).result.complete(results.get(i));
+			}
+		} catch (Exception ex) {
+			logger.error("Claim batch of {} for campaign {} failed... {}", batch.size(), campaignId, ex.toString());
+			if (batch.size() == 1) {
+				PendingClaim pendingClaim = batch.get(0);
+				if (ex instanceof VoucherAlreadyClaimedException) {
+					pendingClaim.result.complete(new VoucherClaimResult(campaignId, pendingClaim.claimedBy, false,
+							"Voucher has already been claimed.", null, HttpStatus.BAD_REQUEST));
+				} else {
+					pendingClaim.result.completeExceptionally(ex);
+				}
+				return;
+			}
+			for (PendingClaim pendingClaim : batch) {
+				claimBatch(campaignId, Collections.singletonList(pendingClaim));
+			}
+		}
+	}
+
+	private final class CampaignClaimQueue {
+		private final String campaignId;
+		private final BlockingQueue<PendingClaim> queue;
+		private final AtomicBoolean draining = new AtomicBoolean();
+
+		private CampaignClaimQueue(String campaignId) {
+			this.campaignId = campaignId;
+			this.queue = new LinkedBlockingQueue<>(queueCapacity);
+		}
+	}
+
+	private static final class PendingClaim {
+		private final CampaignClaimQueue claimQueue;
+		private final String claimedBy;
+		private final CompletableFuture<VoucherClaimResult> result = new CompletableFuture<>();
+
+		private PendingClaim(CampaignClaimQueue claimQueue, String claimedBy) {
+			this.claimQueue = claimQueue;
+			this.claimedBy = claimedBy;
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package sg.edu.nus.iss.voucher.core.workflow.service.impl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
+import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
+import sg.edu.nus.iss.voucher.core.workflow.repository.VoucherRepository;
+import sg.edu.nus.iss.voucher.core.workflow.utility.ClaimantBloomFilter;
+
+// Lets most first-time claimants skip the duplicate-claim query. A yes may be a false positive, so it goes to the
+// database. A no only covers claims made on this replica; one from another replica is caught by the unique key on
+// (campaign, claimant) when the claim is saved.
+@Service
+public class ClaimantIndexService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClaimantIndexService.class);
+
+	@Autowired
+	private VoucherRepository voucherRepository;
+
+	private final double falsePositiveRate;
+	private final Cache<String, CampaignClaimantIndex> indexes;
+	private final ExecutorService warmUpExecutor = Executors.newSingleThreadExecutor();
+
+	public ClaimantIndexService(@Value("${claimant.index.false.positive.rate:0.01}") double falsePositiveRate,
+			@Value("${claimant.index.idle.hours:24}") long idleHours) {
+		this.falsePositiveRate = falsePositiveRate;
+		this.indexes = Caffeine.newBuilder().expireAfterAccess(Duration.ofHours(idleHours)).build();
+	}
+
+	// True only once the campaign's index is warm and has never seen the claimant.
+	public boolean isDefinitelyNotClaimed(Campaign campaign, String claimedBy) {
+		String campaignId = campaign.getCampaignId();
+		if (campaign.getCampaignStatus() != CampaignStatus.PROMOTED) {
+			indexes.invalidate(campaignId);
+			return false;
+		}
+		CampaignClaimantIndex index = indexes.get(campaignId,
+				key -> new CampaignClaimantIndex(new ClaimantBloomFilter(campaign.getNumberOfVouchers(), falsePositiveRate)));
+		if (index.warmUpStarted.compareAndSet(false, true)) {
+			warmUpExecutor.execute(() -> warmUp(campaignId, index));
+		}
+		return index.ready && !index.filter.mightContain(claimedBy);
+	}
+
+	public void recordClaim(String campaignId, String claimedBy) {
+		CampaignClaimantIndex index = indexes.getIfPresent(campaignId);
+		if (index != null) {
+			index.filter.put(claimedBy);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		warmUpExecutor.shutdown();
+	}
+
+	// Claims recorded while the load runs land in the same filter, so nothing committed after the read is missed.
+	private void warmUp(String campaignId, CampaignClaimantIndex index) {
+		try {
+			List<String> claimants = voucherRepository.findAllClaimantsByCampaignId(campaignId);
+			claimants.forEach(index.filter::put);
+			index.ready = true;
+			logger.info("Loaded {} claimants into the index for campaign {}...", claimants.size(), campaignId);
+		} catch (Exception ex) {
+			logger.error("Claimant index warm-up for campaign {} failed... {}", campaignId, ex.toString());
+			indexes.asMap().remove(campaignId, index);
+		}
+	}
+
+	private static final class CampaignClaimantIndex {
+		private final ClaimantBloomFilter filter;
+		private final AtomicBoolean warmUpStarted = new AtomicBoolean();
+		private volatile boolean ready;
+
+		private CampaignClaimantIndex(ClaimantBloomFilter filter) {
+			this.filter = filter;
+		}
+	}
+
+}
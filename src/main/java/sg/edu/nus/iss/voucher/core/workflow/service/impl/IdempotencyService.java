@@ -0,0 +1,96 @@
+package sg.edu.nus.iss.voucher.core.workflow.service.impl;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.APIResponse;
+import sg.edu.nus.iss.voucher.core.workflow.utility.GeneralUtility;
+
+@Service
+public class IdempotencyService {
+
+	private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+	private final Cache<String, StoredResponse> responses;
+	private final long waitTimeoutMillis;
+
+	public IdempotencyService(@Value("${idempotency.cache.maximum.size:100000}") long maximumSize,
+			@Value("${idempotency.key.ttl.minutes:60}") long ttlMinutes,
+			@Value("${idempotency.wait.timeout.ms:15000}") long waitTimeoutMillis) {
+		this.responses = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+				.build();
+		this.waitTimeoutMillis = waitTimeoutMillis;
+	}
+
+	// Keys are scoped to the endpoint and caller. A replay returns the first response without re-running the action, and
+	// a duplicate that arrives while the first is still running waits for it. 5xx and 429 responses are not kept so
+	// that a retry gets a fresh attempt.
+	@SuppressWarnings("unchecked")
+	public <R> ResponseEntity<R> execute(String scope, String userId, String idempotencyKey, String fingerprint,
+			Callable<ResponseEntity<R>> action) throws Exception {
+		if (GeneralUtility.makeNotNull(idempotencyKey).trim().isEmpty()) {
+			return action.call();
+		}
+
+		String cacheKey = scope + ":" + userId + ":" + idempotencyKey.trim();
+		StoredResponse stored = new StoredResponse(fingerprint);
+		StoredResponse existing = responses.asMap().putIfAbsent(cacheKey, stored);
+		if (existing != null) {
+			if (!existing.fingerprint.equals(fingerprint)) {
+				logger.error("Idempotency-Key {} reused for a different {} request.", idempotencyKey, scope);
+				return (ResponseEntity<R>) ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+						.body(APIResponse.error("Idempotency-Key has already been used for a different request."));
+			}
+			logger.info("Replaying {} response for Idempotency-Key {}...", scope, idempotencyKey);
+			return (ResponseEntity<R>) awaitFirst(existing);
+		}
+
+		try {
+			ResponseEntity<R> response = action.call();
+			if (response.getStatusCode().is5xxServerError() || response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+				responses.asMap().remove(cacheKey, stored);
+			}
+			stored.response.complete(response);
+			return response;
+		} catch (Exception ex) {
+			responses.asMap().remove(cacheKey, stored);
+			stored.response.completeExceptionally(ex);
+			throw ex;
+		}
+	}
+
+	private ResponseEntity<?> awaitFirst(StoredResponse existing) throws Exception {
+		try {
+			return existing.response.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException ex) {
+			return ResponseEntity.status(HttpStatus.CONFLICT)
+					.body(APIResponse.error("A request with this Idempotency-Key is still being processed."));
+		} catch (ExecutionException ex) {
+			throw ex.getCause() instanceof Exception cause ? cause : ex;
+		}
+	}
+
+	private static final class StoredResponse {
+		private final String fingerprint;
+		private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+		private StoredResponse(String fingerprint) {
+			this.fingerprint = GeneralUtility.makeNotNull(fingerprint);
+		}
+	}
+
+}
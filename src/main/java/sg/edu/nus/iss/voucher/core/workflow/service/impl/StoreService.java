@@ -212,4 +212,15 @@ public class StoreService implements IStoreService {
 
 	}
 
+	// Moves whenever a store is created, edited or soft deleted, so list pages can be revalidated without loading them.
+	@Override
+	public LocalDateTime findLastModifiedDate() {
+		return storeRepository.findLastModifiedDate();
+	}
+
+	@Override
+	public long countStores() {
+		return storeRepository.count();
+	}
+
 }
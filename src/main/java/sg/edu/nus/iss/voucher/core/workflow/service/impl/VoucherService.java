@@ -3,24 +3,39 @@ package sg.edu.nus.iss.voucher.core.workflow.service.impl;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import sg.edu.nus.iss.voucher.core.workflow.api.connector.AuthAPICall;
+import sg.edu.nus.iss.voucher.core.workflow.dto.CampaignDTO;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherClaimResult;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherConsumeResult;
 import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherDTO;
 import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherRequest;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Voucher;
 import sg.edu.nus.iss.voucher.core.workflow.enums.UserRoleType;
 import sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus;
+import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignFullyClaimedException;
 import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignNotFoundException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyClaimedException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyConsumedException;
 import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherNotFoundException;
 import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignRepository;
 import sg.edu.nus.iss.voucher.core.workflow.repository.VoucherRepository;
@@ -42,6 +57,12 @@ public class VoucherService implements IVoucherService {
 	@Autowired
 	AuthAPICall apiCall;
 	
+	@Autowired
+	private CampaignClaimCounterService claimCounterService;
+	
+	@Autowired
+	private ClaimantIndexService claimantIndexService;
+	
 	
 	private final CampaignService campaignService;
 	private final UserValidatorService userValidatorService;
@@ -65,9 +86,6 @@ public class VoucherService implements IVoucherService {
 			logger.info("Voucher found...");
 			VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(voucher);
 			logger.info("Voucher DTO found...");
-			List<Voucher> voucherList = voucherRepository
-					.findByCampaignCampaignId(voucherDTO.getCampaign().getCampaignId());
-			voucherDTO.getCampaign().setNumberOfClaimedVouchers(voucherList.size());
 			return voucherDTO;
 			
 		} catch (Exception ex) {
@@ -102,17 +120,29 @@ public class VoucherService implements IVoucherService {
 	}
 
 	@Override
+	@Transactional(rollbackFor = Exception.class)
 	public VoucherDTO claimVoucher(VoucherRequest voucherRequest) throws Exception {
 		try {
+			String campaignId = voucherRequest.getCampaignId();
+			Campaign campaign = campaignRepository.findById(campaignId).orElseThrow();
+			if (campaign.isPreMintVouchers()) {
+				return claimPreMintedVoucher(campaign, voucherRequest.getClaimedBy());
+			}
+
+			logger.info("Reserving voucher for campaign {}...", campaignId);
+			if (!claimCounterService.reserveVoucher(campaign)) {
+				logger.error("Campaign {} is fully claimed.", campaignId);
+				throw new CampaignFullyClaimedException("Campaign has been fully claimed: " + campaignId);
+			}
+			campaign = campaignRepository.findById(campaignId).orElseThrow();
 
 			Voucher voucher = new Voucher();
-			Campaign campaign = campaignRepository.findById(voucherRequest.getCampaignId()).orElseThrow();
 			voucher.setVoucherStatus(VoucherStatus.CLAIMED);
 			voucher.setClaimedBy(voucherRequest.getClaimedBy());
 			voucher.setClaimTime(LocalDateTime.now());
 			voucher.setCampaign(campaign);
 			logger.info("Saving voucher...");
-			Voucher savedVoucher = voucherRepository.save(voucher);
+			Voucher savedVoucher = saveClaims(campaignId, () -> voucherRepository.save(voucher));
 			logger.info("Saved successfully...");
 
 			if (savedVoucher == null) {
@@ -120,10 +150,9 @@ public class VoucherService implements IVoucherService {
 				throw new Exception("The attempt to claim the voucher has been unsuccessful.");
 			}
 
+			claimantIndexService.recordClaim(campaignId, savedVoucher.getClaimedBy());
 			VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(savedVoucher);
-			List<Voucher> voucherList = voucherRepository
-					.findByCampaignCampaignId(voucherDTO.getCampaign().getCampaignId());
-			voucherDTO.getCampaign().setNumberOfClaimedVouchers(voucherList.size());
+			voucherDTO.getCampaign().setNumberOfClaimedVouchers(claimCounterService.claimedVouchers(campaign));
 
 			return voucherDTO;
 		} catch (Exception ex) {
@@ -132,6 +161,207 @@ public class VoucherService implements IVoucherService {
 		}
 	}
 
+	// Each claimer locks a different free row, so claims do not queue up behind the campaign row.
+	private VoucherDTO claimPreMintedVoucher(Campaign campaign, String claimedBy) {
+		String campaignId = campaign.getCampaignId();
+		logger.info("Taking a pre-minted voucher for campaign {}...", campaignId);
+		String voucherId = voucherRepository.lockUnclaimedVoucherId(campaignId);
+		if (voucherId == null) {
+			logger.error("Voucher pool for campaign {} is empty.", campaignId);
+			throw new CampaignFullyClaimedException("Campaign has been fully claimed: " + campaignId);
+		}
+
+		Voucher voucher = voucherRepository.findById(voucherId).orElseThrow();
+		voucher.setVoucherStatus(VoucherStatus.CLAIMED);
+		voucher.setClaimedBy(claimedBy);
+		voucher.setClaimTime(LocalDateTime.now());
+		Voucher savedVoucher = saveClaims(campaignId, () -> voucherRepository.save(voucher));
+		logger.info("Claimed pre-minted voucher {}...", voucherId);
+		claimCounterService.recordClaims(campaignId, 1);
+		claimantIndexService.recordClaim(campaignId, claimedBy);
+
+		VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(savedVoucher);
+		voucherDTO.getCampaign().setNumberOfClaimedVouchers(voucherRepository.countClaimedByCampaignId(campaignId));
+		return voucherDTO;
+	}
+
+	// One transaction for the whole batch. A claimant that cannot be served gets a failed result instead of failing the batch.
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public List<VoucherClaimResult> claimVouchers(String campaignId, List<String> claimants) {
+		try {
+			Campaign campaign = campaignRepository.findById(campaignId)
+					.orElseThrow(() -> new CampaignNotFoundException("Campaign not found by campaignId: " + campaignId));
+			logger.info("Claiming {} vouchers for campaign {}...", claimants.size(), campaignId);
+
+			Set<String> claimed = new HashSet<>(voucherRepository.findClaimantsByCampaignId(campaignId, claimants));
+			List<VoucherClaimResult> results = new ArrayList<>();
+			List<VoucherClaimResult> eligible = new ArrayList<>();
+			for (String claimedBy : claimants) {
+				VoucherClaimResult result = new VoucherClaimResult(campaignId, claimedBy, false,
+						"Voucher has already been claimed.", null, HttpStatus.BAD_REQUEST);
+				if (claimed.add(claimedBy)) {
+					eligible.add(result);
+				}
+				results.add(result);
+			}
+
+			List<Voucher> vouchers = campaign.isPreMintVouchers() ? takePreMintedVouchers(campaignId, eligible.size())
+					: reserveVouchers(campaign, eligible.size());
+			if (vouchers.isEmpty()) {
+				eligible.forEach(this::markFullyClaimed);
+				return results;
+			}
+
+			campaign = campaignRepository.findById(campaignId).orElseThrow();
+			LocalDateTime claimTime = LocalDateTime.now();
+			for (int i = 0; i < vouchers.size(); i++) {
+				Voucher voucher = vouchers.get(i);
+				voucher.setCampaign(campaign);
+				voucher.setVoucherStatus(VoucherStatus.CLAIMED);
+				voucher.setClaimedBy(eligible.get(i).getClaimedBy());
+				voucher.setClaimTime(claimTime);
+			}
+			List<Voucher> savedVouchers = saveClaims(campaignId, () -> voucherRepository.saveAll(vouchers));
+			logger.info("Claimed {} vouchers for campaign {}...", savedVouchers.size(), campaignId);
+
+			int claimedVouchers = campaign.isPreMintVouchers() ? voucherRepository.countClaimedByCampaignId(campaignId)
+					: claimCounterService.claimedVouchers(campaign);
+			Iterator<Voucher> savedIterator = savedVouchers.iterator();
+			for (VoucherClaimResult result : eligible) {
+				if (!savedIterator.hasNext()) {
+					markFullyClaimed(result);
+					continue;
+				}
+				VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(savedIterator.next());
+				voucherDTO.getCampaign().setNumberOfClaimedVouchers(claimedVouchers);
+				result.setClaimed(true);
+				result.setMessage("Voucher has been successfully claimed.");
+				result.setVoucher(voucherDTO);
+				result.setStatus(HttpStatus.OK);
+				claimantIndexService.recordClaim(campaignId, result.getClaimedBy());
+			}
+			return results;
+		} catch (Exception ex) {
+			logger.error("Voucher batch claim exception... {}", ex.toString());
+			throw ex;
+		}
+	}
+
+	// Claims one voucher from each campaign for a single user in one transaction, with one result per requested campaign.
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public List<VoucherClaimResult> claimVouchersForUser(String claimedBy, List<String> campaignIds) {
+		try {
+			logger.info("Claiming vouchers from {} campaigns for user {}...", campaignIds.size(), claimedBy);
+			Map<String, Campaign> campaigns = new HashMap<>();
+			for (Campaign campaign : campaignRepository.findAllById(new LinkedHashSet<>(campaignIds))) {
+				campaigns.put(campaign.getCampaignId(), campaign);
+			}
+			Set<String> claimed = campaigns.isEmpty() ? new HashSet<>()
+					: new HashSet<>(voucherRepository.findClaimedCampaignIds(claimedBy, campaigns.keySet()));
+
+			List<VoucherClaimResult> results = new ArrayList<>();
+			Map<VoucherClaimResult, Voucher> reserved = new LinkedHashMap<>();
+			for (String campaignId : campaignIds) {
+				VoucherClaimResult result = new VoucherClaimResult(campaignId, claimedBy, false, "Campaign not Found.", null,
+						HttpStatus.NOT_FOUND);
+				results.add(result);
+				Campaign campaign = campaigns.get(campaignId);
+				if (campaign == null) {
+					continue;
+				}
+				if (!claimed.add(campaignId)) {
+					result.setMessage("Voucher has already been claimed.");
+					result.setStatus(HttpStatus.BAD_REQUEST);
+					continue;
+				}
+				List<Voucher> vouchers = campaign.isPreMintVouchers() ? takePreMintedVouchers(campaignId, 1)
+						: reserveVouchers(campaign, 1);
+				if (vouchers.isEmpty()) {
+					markFullyClaimed(result);
+					continue;
+				}
+				reserved.put(result, vouchers.get(0));
+			}
+			if (reserved.isEmpty()) {
+				return results;
+			}
+
+			campaigns.clear();
+			for (Campaign campaign : campaignRepository.findAllById(new LinkedHashSet<>(campaignIds))) {
+				campaigns.put(campaign.getCampaignId(), campaign);
+			}
+			LocalDateTime claimTime = LocalDateTime.now();
+			for (Map.Entry<VoucherClaimResult, Voucher> entry : reserved.entrySet()) {
+				Voucher voucher = entry.getValue();
+				voucher.setCampaign(campaigns.get(entry.getKey().getCampaignId()));
+				voucher.setVoucherStatus(VoucherStatus.CLAIMED);
+				voucher.setClaimedBy(claimedBy);
+				voucher.setClaimTime(claimTime);
+			}
+			List<Voucher> savedVouchers = saveClaims(claimedBy, () -> voucherRepository.saveAll(reserved.values()));
+			logger.info("Claimed {} vouchers for user {}...", savedVouchers.size(), claimedBy);
+
+			Iterator<Voucher> savedIterator = savedVouchers.iterator();
+			for (VoucherClaimResult result : reserved.keySet()) {
+				Campaign campaign = campaigns.get(result.getCampaignId());
+				VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(savedIterator.next());
+				voucherDTO.getCampaign().setNumberOfClaimedVouchers(campaign.isPreMintVouchers()
+						? voucherRepository.countClaimedByCampaignId(campaign.getCampaignId())
+						: claimCounterService.claimedVouchers(campaign));
+				result.setClaimed(true);
+				result.setMessage("Voucher has been successfully claimed.");
+				result.setVoucher(voucherDTO);
+				result.setStatus(HttpStatus.OK);
+				claimantIndexService.recordClaim(campaign.getCampaignId(), claimedBy);
+			}
+			return results;
+		} catch (Exception ex) {
+			logger.error("Voucher bulk claim exception... {}", ex.toString());
+			throw ex;
+		}
+	}
+
+	// The duplicate-claim check can miss a claim another replica commits after it, so the unique key on
+	// (campaign, claimant) is the last guard. Flushing here surfaces its violation while the caller can still map it.
+	private <T> T saveClaims(String claimKey, Supplier<T> save) {
+		try {
+			T saved = save.get();
+			voucherRepository.flush();
+			return saved;
+		} catch (DataIntegrityViolationException ex) {
+			logger.error("Duplicate claim for {} rejected by the database... {}", claimKey, ex.toString());
+			throw new VoucherAlreadyClaimedException("Voucher has already been claimed: " + claimKey);
+		}
+	}
+
+	private void markFullyClaimed(VoucherClaimResult result) {
+		result.setMessage("Campaign has been fully claimed.");
+		result.setStatus(HttpStatus.UNAUTHORIZED);
+	}
+
+	private List<Voucher> takePreMintedVouchers(String campaignId, int count) {
+		if (count == 0) {
+			return new ArrayList<>();
+		}
+		List<String> voucherIds = voucherRepository.lockUnclaimedVoucherIds(campaignId, count);
+		if (voucherIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+		claimCounterService.recordClaims(campaignId, voucherIds.size());
+		return voucherRepository.findAllById(voucherIds);
+	}
+
+	private List<Voucher> reserveVouchers(Campaign campaign, int count) {
+		int reserved = count == 0 ? 0 : claimCounterService.reserveVouchers(campaign, count);
+		List<Voucher> vouchers = new ArrayList<>(reserved);
+		for (int i = 0; i < reserved; i++) {
+			vouchers.add(new Voucher());
+		}
+		return vouchers;
+	}
+
 	@Override
 	public Map<Long, List<VoucherDTO>> findByClaimedByAndVoucherStatus(String userId,String status, Pageable pageable) {
 		logger.info("Getting all claimed voucher for user {}...", userId);
@@ -146,9 +376,6 @@ public class VoucherService implements IVoucherService {
 			if (totalRecord > 0) {
 				for (Voucher voucher : voucherPages) {
 					VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(voucher);
-					List<Voucher> voucherList = voucherRepository
-							.findByCampaignCampaignId(voucherDTO.getCampaign().getCampaignId());
-					voucherDTO.getCampaign().setNumberOfClaimedVouchers(voucherList.size());
 					voucherDTOList.add(voucherDTO);
 
 				}
@@ -189,25 +416,27 @@ public class VoucherService implements IVoucherService {
 	}
 
 	@Override
+	@Transactional(rollbackFor = Exception.class)
 	public VoucherDTO consumeVoucher(String voucherId)  {
 		try {
 			// Add validation here to make sure the same userId is passed
 
-			Voucher dbVoucher = voucherRepository.findById(voucherId).orElseThrow();
+			logger.info("Consuming voucher...");
+			int consumed = voucherRepository.consumeVoucher(voucherId, LocalDateTime.now());
+			Voucher dbVoucher = voucherRepository.findById(voucherId).orElse(null);
 			if (dbVoucher == null) {
 				logger.info("Voucher Id {} is not found.", voucherId);
 				throw new VoucherNotFoundException("The voucher with the specified ID "+ voucherId+ "could not be found in the system.");
 			}
-			dbVoucher.setConsumedTime(LocalDateTime.now());
-			dbVoucher.setVoucherStatus(VoucherStatus.CONSUMED);
-			logger.info("Consuming voucher...");
-			Voucher savedVoucher = voucherRepository.save(dbVoucher);
+			if (consumed == 0) {
+				logger.error("Voucher {} is {} and cannot be consumed.", voucherId, dbVoucher.getVoucherStatus());
+				throw new VoucherAlreadyConsumedException("Voucher has already been consumed: " + voucherId);
+			}
 			logger.info("Consumed successfully...");
 
-			VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(savedVoucher);
-			List<Voucher> voucherList = voucherRepository
-					.findByCampaignCampaignId(voucherDTO.getCampaign().getCampaignId());
-			voucherDTO.getCampaign().setNumberOfClaimedVouchers(voucherList.size());
+			VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(dbVoucher);
+			campaignRepository.addConsumedVouchers(voucherDTO.getCampaign().getCampaignId(), 1);
+			voucherDTO.getCampaign().setNumberOfConsumedVouchers(voucherDTO.getCampaign().getNumberOfConsumedVouchers() + 1);
 
 			return voucherDTO;
 		} catch (Exception ex) {
@@ -215,6 +444,65 @@ public class VoucherService implements IVoucherService {
 			throw ex;
 		}
 	}
+
+	// Locks the requested vouchers, then consumes every one that is still CLAIMED with a single conditional update.
+	@Override
+	@Transactional(rollbackFor = Exception.class)
+	public List<VoucherConsumeResult> consumeVouchers(List<String> voucherIds) {
+		try {
+			logger.info("Consuming {} vouchers...", voucherIds.size());
+			Map<String, Voucher> vouchers = new HashMap<>();
+			for (Voucher voucher : voucherRepository.lockByVoucherIdIn(new LinkedHashSet<>(voucherIds))) {
+				vouchers.put(voucher.getVoucherId(), voucher);
+			}
+
+			List<VoucherConsumeResult> results = new ArrayList<>();
+			Set<String> consumable = new LinkedHashSet<>();
+			for (String voucherId : voucherIds) {
+				Voucher voucher = vouchers.get(voucherId);
+				if (voucher == null) {
+					results.add(new VoucherConsumeResult(voucherId, false, "Voucher not found.", null, HttpStatus.NOT_FOUND));
+				} else if (voucher.getVoucherStatus() != VoucherStatus.CLAIMED || !consumable.add(voucherId)) {
+					results.add(new VoucherConsumeResult(voucherId, false, "Voucher has already been consumed.", null,
+							HttpStatus.UNAUTHORIZED));
+				} else {
+					results.add(new VoucherConsumeResult(voucherId, true, "Voucher has been successfully consumed.", null,
+							HttpStatus.OK));
+				}
+			}
+			if (consumable.isEmpty()) {
+				return results;
+			}
+
+			LocalDateTime consumedTime = LocalDateTime.now();
+			int consumed = voucherRepository.consumeVouchers(consumable, consumedTime);
+			logger.info("Consumed {} vouchers...", consumed);
+
+			Map<String, Integer> consumedCounts = new HashMap<>();
+			for (String voucherId : consumable) {
+				consumedCounts.merge(vouchers.get(voucherId).getCampaign().getCampaignId(), 1, Integer::sum);
+			}
+			consumedCounts.forEach(campaignRepository::addConsumedVouchers);
+
+			for (VoucherConsumeResult result : results) {
+				if (!result.isConsumed()) {
+					continue;
+				}
+				Voucher voucher = vouchers.get(result.getVoucherId());
+				voucher.setVoucherStatus(VoucherStatus.CONSUMED);
+				voucher.setConsumedTime(consumedTime);
+				VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(voucher);
+				CampaignDTO campaignDTO = voucherDTO.getCampaign();
+				campaignDTO.setNumberOfConsumedVouchers(
+						campaignDTO.getNumberOfConsumedVouchers() + consumedCounts.get(campaignDTO.getCampaignId()));
+				result.setVoucher(voucherDTO);
+			}
+			return results;
+		} catch (Exception ex) {
+			logger.error("Voucher batch consuming exception... {}", ex.toString());
+			throw ex;
+		}
+	}
 	
 	
 	public String validateUser(String userId, String authorizationHeader) {
@@ -243,19 +531,22 @@ public class VoucherService implements IVoucherService {
 
 	// Check if the voucher has already been claimed by this user
 	public boolean isVoucherAlreadyClaimed(String claimBy, Campaign campaign) {
-		VoucherDTO voucherDTO = findVoucherByCampaignIdAndUserId(campaign, claimBy);
-		if (voucherDTO != null && voucherDTO.getVoucherId() != null && !voucherDTO.getVoucherId().isEmpty()) {
+		if (claimantIndexService.isDefinitelyNotClaimed(campaign, claimBy)) {
+			return false;
+		}
+		if (voucherRepository.existsByCampaignCampaignIdAndClaimedBy(campaign.getCampaignId(), claimBy)) {
 			logger.error("Voucher already claimed.");
 			return true;
 		}
 		return false;
 	}
 
-	// Check if the campaign has already given out all its vouchers
+	// Check if the campaign has already given out all its vouchers.
+	// Advisory only: claimVoucher re-checks atomically when it reserves the slot.
 	public boolean isCampaignFullyClaimed(String campaignId, Campaign campaign) {
-		List<Voucher> claimedVoucherList = findVoucherListByCampaignId(campaignId);
-		logger.info("claimedVoucherList: " + claimedVoucherList);
-		if (campaign.getNumberOfVouchers() <= claimedVoucherList.size()) {
+		int claimedVouchers = claimCounterService.claimedVouchers(campaign);
+		logger.info("Campaign {} claimed vouchers: {}/{}", campaignId, claimedVouchers, campaign.getNumberOfVouchers());
+		if (campaign.getNumberOfVouchers() <= claimedVouchers) {
 			logger.error("Campaign is fully claimed.");
 			return true;
 		}
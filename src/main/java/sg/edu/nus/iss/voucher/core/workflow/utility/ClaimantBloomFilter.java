@@ -0,0 +1,60 @@
+package sg.edu.nus.iss.voucher.core.workflow.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free Bloom filter over claimant user IDs. mightContain never returns false for a value that was put.
+public class ClaimantBloomFilter {
+
+	private final AtomicLongArray bits;
+	private final int numBits;
+	private final int numHashes;
+
+	public ClaimantBloomFilter(int expectedInsertions, double falsePositiveRate) {
+		int insertions = Math.max(1, expectedInsertions);
+		long optimalBits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.numBits = (int) Math.min(Integer.MAX_VALUE - 64, Math.max(64, optimalBits));
+		this.numHashes = Math.max(1, (int) Math.round((double) numBits / insertions * Math.log(2)));
+		this.bits = new AtomicLongArray((numBits + 63) / 64);
+	}
+
+	public void put(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+		for (int i = 0; i < numHashes; i++) {
+			int index = (int) Math.floorMod(hash1 + i * hash2, (long) numBits);
+			long mask = 1L << (index & 63);
+			bits.getAndAccumulate(index >>> 6, mask, (current, bit) -> current | bit);
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+		for (int i = 0; i < numHashes; i++) {
+			int index = (int) Math.floorMod(hash1 + i * hash2, (long) numBits);
+			if ((bits.get(index >>> 6) & (1L << (index & 63))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long hash(String value) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+		return mix(hash);
+	}
+
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
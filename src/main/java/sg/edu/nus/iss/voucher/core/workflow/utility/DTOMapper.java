@@ -1,8 +1,5 @@
 package sg.edu.nus.iss.voucher.core.workflow.utility;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import sg.edu.nus.iss.voucher.core.workflow.dto.*;
 import sg.edu.nus.iss.voucher.core.workflow.entity.*;
 
@@ -66,7 +63,11 @@ public class DTOMapper {
 		return storeDTO;
 	}
 
-	public static CampaignDTO toCampaignDTO(Campaign campaign, List<Voucher> voucherList) {
+	public static CampaignDTO toCampaignDTO(Campaign campaign) {
+		return toCampaignDTO(campaign, campaign.getNumberOfClaimedVouchers(), campaign.getNumberOfConsumedVouchers());
+	}
+
+	public static CampaignDTO toCampaignDTO(Campaign campaign, int numberOfClaimedVouchers, int numberOfConsumedVouchers) {
 		CampaignDTO campaignDTO = new CampaignDTO();
 		campaignDTO.setCampaignId(campaign.getCampaignId());
 		campaignDTO.setDescription(campaign.getDescription());
@@ -85,19 +86,15 @@ public class DTOMapper {
 		campaignDTO.setCreatedDate(campaign.getCreatedDate());
 		campaignDTO.setUpdatedBy(campaign.getUpdatedBy());
 		campaignDTO.setUpdatedDate(campaign.getUpdatedDate());
-
-		if (voucherList != null) {
-			campaignDTO.setNumberOfClaimedVouchers(voucherList.size());
-		}
+		campaignDTO.setNumberOfClaimedVouchers(numberOfClaimedVouchers);
+		campaignDTO.setNumberOfConsumedVouchers(numberOfConsumedVouchers);
 		return campaignDTO;
 	}
 
 	public static VoucherDTO toVoucherDTO(Voucher voucher) {
-		List<Voucher> voucherList = new ArrayList<>();
 		VoucherDTO voucherDTO = new VoucherDTO();
-		voucherList.add(voucher);
 		voucherDTO.setVoucherId(voucher.getVoucherId());
-		voucherDTO.setCampaign(toCampaignDTO(voucher.getCampaign(), voucherList));
+		voucherDTO.setCampaign(toCampaignDTO(voucher.getCampaign()));
 		voucherDTO.setVoucherStatus(voucher.getVoucherStatus());
 		voucherDTO.setClaimTime(voucher.getClaimTime());
 		voucherDTO.setConsumedTime(voucher.getConsumedTime());
@@ -105,4 +102,16 @@ public class DTOMapper {
 		voucherDTO.setAmount(voucherDTO.getCampaign().getAmount());
 		return voucherDTO;
 	}
+
+	public static ClaimTicketDTO toClaimTicketDTO(ClaimTicket claimTicket) {
+		ClaimTicketDTO claimTicketDTO = new ClaimTicketDTO();
+		claimTicketDTO.setTicketId(claimTicket.getTicketId());
+		claimTicketDTO.setCampaignId(claimTicket.getCampaignId());
+		claimTicketDTO.setClaimedBy(claimTicket.getClaimedBy());
+		claimTicketDTO.setStatus(claimTicket.getStatus());
+		claimTicketDTO.setMessage(claimTicket.getMessage());
+		claimTicketDTO.setCreatedTime(claimTicket.getCreatedTime());
+		claimTicketDTO.setCompletedTime(claimTicket.getCompletedTime());
+		return claimTicketDTO;
+	}
 }
@@ -0,0 +1,369 @@
+package sg.edu.nus.iss.voucher.core.workflow.api.connector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import sg.edu.nus.iss.voucher.core.workflow.configuration.AuthAPIConfig;
+
+public class AuthAPICallTest {
+
+	private static final String ACTIVE = "{\"success\":true,\"message\":\"Active user\",\"data\":{\"userID\":\"U1\"}}";
+	private static final String INACTIVE = "{\"success\":false,\"message\":\"User not found\"}";
+
+	private CloseableHttpClient authHttpClient = Mockito.mock(CloseableHttpClient.class);
+
+	private CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("authApi");
+
+	private Bulkhead bulkhead = Bulkhead.of("authApi",
+			BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build());
+
+	private AuthServiceStub authServiceStub;
+
+	private CloseableHttpClient stubHttpClient;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (stubHttpClient != null) {
+			stubHttpClient.close();
+		}
+		if (authServiceStub != null) {
+			authServiceStub.close();
+		}
+	}
+
+	private AuthAPICall createAuthAPICall(long activeTtlSeconds, long inactiveTtlSeconds) {
+		AuthAPICall authAPICall = new AuthAPICall(authHttpClient, circuitBreaker, bulkhead, activeTtlSeconds,
+				inactiveTtlSeconds, 600, 100, "", false, 50, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(authAPICall, "authURL", "http://auth/api/users ");
+		return Mockito.spy(authAPICall);
+	}
+
+	// Talks to a local AuthServiceStub over HTTP.
+	private AuthAPICall createStubbedAuthAPICall(String serviceToken, int maxBatchSize) throws Exception {
+		return createStubbedAuthAPICall(serviceToken, maxBatchSize, HttpClients.createDefault());
+	}
+
+	private AuthAPICall createStubbedAuthAPICall(String serviceToken, int maxBatchSize, CloseableHttpClient httpClient)
+			throws Exception {
+		authServiceStub = new AuthServiceStub();
+		stubHttpClient = httpClient;
+		AuthAPICall authAPICall = new AuthAPICall(stubHttpClient, circuitBreaker, bulkhead, 30, 5, 600, 100,
+				serviceToken, true, maxBatchSize, new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(authAPICall, "authURL", authServiceStub.url());
+		return authAPICall;
+	}
+
+	private static List<Integer> batchSizes(List<AuthServiceStub.BulkRequest> bulkRequests) {
+		return bulkRequests.stream().map(bulkRequest -> bulkRequest.userIds().size()).toList();
+	}
+
+	private void awaitBulkRequests(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (authServiceStub.bulkRequests().size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, authServiceStub.bulkRequests().size());
+	}
+
+	@Test
+	void requestActiveUser_UsesSharedClientWithEscapedBody() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 5);
+		ClassicHttpResponse httpResponse = response(200, ACTIVE);
+		ArgumentCaptor<HttpPost> requestCaptor = ArgumentCaptor.forClass(HttpPost.class);
+		Mockito.when(authHttpClient.execute(requestCaptor.capture(), Mockito.<HttpClientResponseHandler<String>>any()))
+				.thenAnswer(handle(httpResponse));
+
+		assertEquals(ACTIVE, authAPICall.requestActiveUser("U\"5", "Bearer token"));
+
+		HttpPost request = requestCaptor.getValue();
+		assertEquals("http://auth/api/users/active", request.getUri().toString());
+		assertEquals("Bearer token", request.getFirstHeader("Authorization").getValue());
+		assertEquals("{\"userId\":\"U\\\"5\"}", EntityUtils.toString(request.getEntity()));
+		Mockito.verify(authHttpClient, Mockito.never()).close();
+	}
+
+	private static ClassicHttpResponse response(int statusCode, String body) {
+		ClassicHttpResponse httpResponse = new BasicClassicHttpResponse(statusCode);
+		httpResponse.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+		return httpResponse;
+	}
+
+	// Hands the response to the caller's handler, as the client does before closing it.
+	private static Answer<Object> handle(ClassicHttpResponse httpResponse) {
+		return invocation -> invocation.<HttpClientResponseHandler<?>>getArgument(1).handleResponse(httpResponse);
+	}
+
+	@Test
+	void validateActiveUser_FailuresReturnEmptyAndTripBreaker() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 5);
+		Mockito.when(authHttpClient.execute(Mockito.any(HttpPost.class), Mockito.<HttpClientResponseHandler<String>>any()))
+				.thenAnswer(handle(response(503, "Service Unavailable")))
+				.thenThrow(new SocketTimeoutException());
+
+		assertEquals("", authAPICall.validateActiveUser("U6", "Bearer token"));
+		assertEquals("", authAPICall.validateActiveUser("U6", "Bearer token"));
+
+		assertEquals(2, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+	}
+
+	@Test
+	void authHttpClient_TimesSingleAndBulkCallsApart() throws Exception {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		ObservationRegistry observationRegistry = ObservationRegistry.create();
+		observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+		AuthAPIConfig authAPIConfig = new AuthAPIConfig();
+		ReflectionTestUtils.setField(authAPIConfig, "maxConnections", 2);
+		ReflectionTestUtils.setField(authAPIConfig, "maxConnectionsPerRoute", 2);
+		AuthAPICall authAPICall = createStubbedAuthAPICall(AuthServiceStub.SERVICE_TOKEN, 50,
+				authAPIConfig.authHttpClient(meterRegistry, observationRegistry));
+
+		authAPICall.requestActiveUser("U1", "Bearer token");
+		authAPICall.requestActiveUsers(List.of("U1", "U2"), "Bearer " + AuthServiceStub.SERVICE_TOKEN);
+
+		assertEquals(1, meterRegistry.get("httpcomponents.httpclient.request").tag("uri", "/api/users/active").timer()
+				.count());
+		assertEquals(1, meterRegistry.get("httpcomponents.httpclient.request").tag("uri", "/api/users/active/bulk")
+				.timer().count());
+	}
+
+	@Test
+	void validateActiveUser_FallsBackToLastKnownWhenBreakerOpen() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(0, 0);
+		Mockito.doReturn(ACTIVE).when(authAPICall).requestActiveUser("U7", "Bearer token");
+		assertEquals(ACTIVE, authAPICall.validateActiveUser("U7", "Bearer token"));
+
+		circuitBreaker.transitionToOpenState();
+
+		assertEquals(ACTIVE, authAPICall.validateActiveUser("U7", "Bearer token"));
+		assertEquals("", authAPICall.validateActiveUser("U8", "Bearer token"));
+		Mockito.verify(authAPICall, Mockito.times(1)).requestActiveUser(Mockito.anyString(), Mockito.anyString());
+	}
+
+	@Test
+	void validateActiveUser_BulkheadFullRejectsWithoutCalling() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 5);
+		bulkhead.acquirePermission();
+		try {
+			assertEquals("", authAPICall.validateActiveUser("U9", "Bearer token"));
+		} finally {
+			bulkhead.onComplete();
+		}
+		Mockito.verify(authAPICall, Mockito.never()).requestActiveUser(Mockito.anyString(), Mockito.anyString());
+	}
+
+	@Test
+	void validateActiveUser_CachesActiveUser() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 5);
+		Mockito.doReturn(ACTIVE).when(authAPICall).requestActiveUser("U1", "Bearer token");
+
+		assertEquals(ACTIVE, authAPICall.validateActiveUser("U1", "Bearer token"));
+		assertEquals(ACTIVE, authAPICall.validateActiveUser("U1", "Bearer token"));
+
+		Mockito.verify(authAPICall, Mockito.times(1)).requestActiveUser("U1", "Bearer token");
+	}
+
+	@Test
+	void validateActiveUser_InactiveUserExpiresSooner() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 1);
+		Mockito.doReturn(INACTIVE).when(authAPICall).requestActiveUser("U2", "Bearer token");
+
+		assertEquals(INACTIVE, authAPICall.validateActiveUser("U2", "Bearer token"));
+		assertEquals(INACTIVE, authAPICall.validateActiveUser("U2", "Bearer token"));
+		Mockito.verify(authAPICall, Mockito.times(1)).requestActiveUser("U2", "Bearer token");
+
+		Thread.sleep(1100);
+		authAPICall.validateActiveUser("U2", "Bearer token");
+		Mockito.verify(authAPICall, Mockito.times(2)).requestActiveUser("U2", "Bearer token");
+	}
+
+	@Test
+	void validateActiveUser_RejectedCallerDoesNotPoisonOtherCallers() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 5);
+		Mockito.doReturn(INACTIVE).when(authAPICall).requestActiveUser("U5", "Bearer bad");
+		Mockito.doReturn(ACTIVE).when(authAPICall).requestActiveUser("U5", "Bearer good");
+
+		assertEquals(INACTIVE, authAPICall.validateActiveUser("U5", "Bearer bad"));
+		assertEquals(INACTIVE, authAPICall.validateActiveUser("U5", "Bearer bad"));
+		assertEquals(ACTIVE, authAPICall.validateActiveUser("U5", "Bearer good"));
+		assertEquals(ACTIVE, authAPICall.validateActiveUser("U5", "Bearer other"));
+
+		Mockito.verify(authAPICall, Mockito.times(1)).requestActiveUser("U5", "Bearer bad");
+		Mockito.verify(authAPICall, Mockito.times(1)).requestActiveUser("U5", "Bearer good");
+	}
+
+	@Test
+	void validateActiveUser_FailedCallNotCached() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 5);
+		Mockito.doThrow(new SocketTimeoutException()).doReturn(ACTIVE).when(authAPICall).requestActiveUser("U3",
+				"Bearer token");
+
+		assertEquals("", authAPICall.validateActiveUser("U3", "Bearer token"));
+		assertEquals(ACTIVE, authAPICall.validateActiveUser("U3", "Bearer token"));
+	}
+
+	@Test
+	void validateActiveUser_ConcurrentMissesShareOneCall() throws Exception {
+		AuthAPICall authAPICall = createAuthAPICall(30, 5);
+		CountDownLatch release = new CountDownLatch(1);
+		Mockito.doAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return ACTIVE;
+		}).when(authAPICall).requestActiveUser(Mockito.eq("U4"), Mockito.anyString());
+
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			futures.add(CompletableFuture.supplyAsync(() -> authAPICall.validateActiveUser("U4", "Bearer token")));
+		}
+		Thread.sleep(200);
+		release.countDown();
+
+		for (CompletableFuture<String> future : futures) {
+			assertEquals(ACTIVE, future.get(5, TimeUnit.SECONDS));
+		}
+		Mockito.verify(authAPICall, Mockito.times(1)).requestActiveUser(Mockito.eq("U4"), Mockito.anyString());
+	}
+
+	@Test
+	void requestActiveUsers_PostsIdsAndSplitsResponsePerUser() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall(AuthServiceStub.SERVICE_TOKEN, 50);
+
+		Map<String, String> responses = authAPICall.requestActiveUsers(List.of("B1", "GONE"), "Bearer service-token");
+
+		assertEquals(Map.of("B1", AuthServiceStub.activeResponse("B1")), responses);
+		assertEquals(List.of(new AuthServiceStub.BulkRequest("Bearer service-token", List.of("B1", "GONE"))),
+				authServiceStub.bulkRequests());
+	}
+
+	@Test
+	void requestActiveUsers_RejectedTokenFailsTheCall() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall(AuthServiceStub.SERVICE_TOKEN, 50);
+
+		assertThrows(IOException.class, () -> authAPICall.requestActiveUsers(List.of("B1", "B2"), "Bearer caller"));
+	}
+
+	@Test
+	void validateActiveUsers_RejectedServiceTokenCachesNothing() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall("wrong-token", 50);
+
+		assertEquals(Map.of(), authAPICall.validateActiveUsers(List.of("B1"), "Bearer caller"));
+		assertEquals(Map.of(), authAPICall.validateActiveUsers(List.of("B1"), "Bearer caller"));
+
+		assertEquals(2, authServiceStub.bulkRequests().size());
+	}
+
+	@Test
+	void validateActiveUsers_CallersShareBatchUnderServiceToken() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall(AuthServiceStub.SERVICE_TOKEN, 50);
+		CountDownLatch release = authServiceStub.holdBulkCalls();
+
+		// The first lookup is sent at once; the rest arrive while it is in flight and go out together after it.
+		CompletableFuture<Map<String, String>> first = CompletableFuture
+				.supplyAsync(() -> authAPICall.validateActiveUsers(List.of("B0"), "Bearer caller-0"));
+		awaitBulkRequests(1);
+		CompletableFuture<Map<String, String>> second = CompletableFuture
+				.supplyAsync(() -> authAPICall.validateActiveUsers(List.of("B1", "B2", "GONE"), "Bearer caller-1"));
+		CompletableFuture<Map<String, String>> third = CompletableFuture
+				.supplyAsync(() -> authAPICall.validateActiveUsers(List.of("B2", "B3"), "Bearer caller-2"));
+		Thread.sleep(200);
+		release.countDown();
+
+		assertEquals(Map.of("B0", AuthServiceStub.activeResponse("B0")), first.get(5, TimeUnit.SECONDS));
+		assertEquals(Map.of("B1", AuthServiceStub.activeResponse("B1"), "B2", AuthServiceStub.activeResponse("B2")),
+				second.get(5, TimeUnit.SECONDS));
+		assertEquals(Map.of("B2", AuthServiceStub.activeResponse("B2"), "B3", AuthServiceStub.activeResponse("B3")),
+				third.get(5, TimeUnit.SECONDS));
+		assertEquals(List.of(1, 4), batchSizes(authServiceStub.bulkRequests()));
+		for (AuthServiceStub.BulkRequest bulkRequest : authServiceStub.bulkRequests()) {
+			assertEquals("Bearer service-token", bulkRequest.authorizationHeader());
+		}
+
+		assertEquals(AuthServiceStub.activeResponse("B3"), authAPICall.validateActiveUser("B3", "Bearer caller-9"));
+		assertEquals(2, authServiceStub.bulkRequests().size());
+		assertTrue(authServiceStub.singleAuthorizationHeaders().isEmpty());
+	}
+
+	@Test
+	void validateActiveUsers_SplitsQueuedLookupsAtMaxBatchSize() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall(AuthServiceStub.SERVICE_TOKEN, 3);
+		CountDownLatch release = authServiceStub.holdBulkCalls();
+
+		CompletableFuture<Map<String, String>> first = CompletableFuture
+				.supplyAsync(() -> authAPICall.validateActiveUsers(List.of("B0"), "Bearer caller"));
+		awaitBulkRequests(1);
+		CompletableFuture<Map<String, String>> rest = CompletableFuture.supplyAsync(
+				() -> authAPICall.validateActiveUsers(List.of("B1", "B2", "B3", "B4", "B5"), "Bearer caller"));
+		Thread.sleep(200);
+		release.countDown();
+
+		assertEquals(1, first.get(5, TimeUnit.SECONDS).size());
+		assertEquals(5, rest.get(5, TimeUnit.SECONDS).size());
+		assertEquals(List.of(1, 3, 2), batchSizes(authServiceStub.bulkRequests()));
+	}
+
+	@Test
+	void validateActiveUser_SingleLookupKeepsCallerTokenWhenBatching() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall(AuthServiceStub.SERVICE_TOKEN, 50);
+
+		assertEquals(AuthServiceStub.activeResponse("B1"), authAPICall.validateActiveUser("B1", "Bearer caller"));
+
+		assertTrue(authServiceStub.bulkRequests().isEmpty());
+		assertEquals(List.of("Bearer caller"), authServiceStub.singleAuthorizationHeaders());
+	}
+
+	@Test
+	void validateActiveUsers_WithoutServiceTokenLooksUpEachUserWithCallerToken() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall("", 50);
+
+		assertEquals(Map.of("B1", AuthServiceStub.activeResponse("B1"), "B2", AuthServiceStub.activeResponse("B2")),
+				authAPICall.validateActiveUsers(List.of("B1", "B2"), "Bearer caller"));
+
+		assertTrue(authServiceStub.bulkRequests().isEmpty());
+		assertEquals(List.of("Bearer caller", "Bearer caller"), authServiceStub.singleAuthorizationHeaders());
+	}
+
+	@Test
+	void validateActiveUsers_OpenBreakerServesCachedAndRejectsNewBatch() throws Exception {
+		AuthAPICall authAPICall = createStubbedAuthAPICall(AuthServiceStub.SERVICE_TOKEN, 50);
+		assertEquals(1, authAPICall.validateActiveUsers(List.of("B1"), "Bearer caller").size());
+
+		circuitBreaker.transitionToOpenState();
+
+		assertEquals(Map.of("B1", AuthServiceStub.activeResponse("B1")),
+				authAPICall.validateActiveUsers(List.of("B1", "B9"), "Bearer caller"));
+		assertEquals(1, authServiceStub.bulkRequests().size());
+	}
+
+}
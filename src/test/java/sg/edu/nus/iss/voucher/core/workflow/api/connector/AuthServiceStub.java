@@ -0,0 +1,130 @@
+package sg.edu.nus.iss.voucher.core.workflow.api.connector;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Local HTTP stand-in for the auth service's active-user endpoints. Every user is active except "GONE", and a bulk
+// call is only answered for the configured service credential.
+class AuthServiceStub implements AutoCloseable {
+
+	static final String SERVICE_TOKEN = "service-token";
+
+	private final HttpServer server;
+
+	private final List<BulkRequest> bulkRequests = new CopyOnWriteArrayList<>();
+
+	private final List<String> singleAuthorizationHeaders = new CopyOnWriteArrayList<>();
+
+	private volatile CountDownLatch bulkHold = new CountDownLatch(0);
+
+	record BulkRequest(String authorizationHeader, List<String> userIds) {
+	}
+
+	AuthServiceStub() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/api/users/active/bulk", this::handleBulk);
+		server.createContext("/api/users/active", this::handleSingle);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+	}
+
+	static String activeResponse(String userId) {
+		return "{\"data\":{\"userID\":\"" + userId + "\"},\"success\":true}";
+	}
+
+	String url() {
+		return "http://localhost:" + server.getAddress().getPort() + "/api/users";
+	}
+
+	List<BulkRequest> bulkRequests() {
+		return bulkRequests;
+	}
+
+	List<String> singleAuthorizationHeaders() {
+		return singleAuthorizationHeaders;
+	}
+
+	// Bulk calls received from now on wait until the returned latch is counted down.
+	CountDownLatch holdBulkCalls() {
+		bulkHold = new CountDownLatch(1);
+		return bulkHold;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void handleBulk(HttpExchange exchange) throws IOException {
+		List<String> userIds = new ArrayList<>();
+		for (Object userId : (JSONArray) readBody(exchange).get("userIds")) {
+			userIds.add((String) userId);
+		}
+		String authorizationHeader = exchange.getRequestHeaders().getFirst("Authorization");
+		bulkRequests.add(new BulkRequest(authorizationHeader, userIds));
+		try {
+			bulkHold.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		if (!("Bearer " + SERVICE_TOKEN).equals(authorizationHeader)) {
+			respond(exchange, 401, "{\"success\":false,\"message\":\"Invalid token\"}");
+			return;
+		}
+		JSONObject data = new JSONObject();
+		for (String userId : userIds) {
+			if (!"GONE".equals(userId)) {
+				data.put(userId, parse(activeResponse(userId)));
+			}
+		}
+		JSONObject response = new JSONObject();
+		response.put("success", true);
+		response.put("data", data);
+		respond(exchange, 200, response.toJSONString());
+	}
+
+	private void handleSingle(HttpExchange exchange) throws IOException {
+		String userId = (String) readBody(exchange).get("userId");
+		singleAuthorizationHeaders.add(exchange.getRequestHeaders().getFirst("Authorization"));
+		respond(exchange, 200, "GONE".equals(userId) ? "{\"success\":false,\"message\":\"User not found\"}"
+				: activeResponse(userId));
+	}
+
+	private static JSONObject readBody(HttpExchange exchange) throws IOException {
+		return parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+	}
+
+	private static JSONObject parse(String json) throws IOException {
+		try {
+			return (JSONObject) new JSONParser().parse(json);
+		} catch (Exception ex) {
+			throw new IOException(ex);
+		}
+	}
+
+	private static void respond(HttpExchange exchange, int statusCode, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(statusCode, bytes.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(bytes);
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+}
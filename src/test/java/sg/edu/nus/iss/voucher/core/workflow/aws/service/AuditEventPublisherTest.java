@@ -0,0 +1,186 @@
+package sg.edu.nus.iss.voucher.core.workflow.aws.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
+import sg.edu.nus.iss.voucher.core.workflow.enums.AuditOverflowPolicy;
+
+public class AuditEventPublisherTest {
+
+	private SQSPublishingService sqsPublishingService = Mockito.mock(SQSPublishingService.class);
+
+	private AuditSpool auditSpool = Mockito.mock(AuditSpool.class);
+
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+	private AuditEventPublisher auditEventPublisher;
+
+	private AuditEventPublisher startPublisher(int capacity, int batchSize, long flushIntervalMillis,
+			AuditOverflowPolicy overflowPolicy) {
+		auditEventPublisher = new AuditEventPublisher(sqsPublishingService, auditSpool, capacity, batchSize,
+				flushIntervalMillis, overflowPolicy, 5000, meterRegistry);
+		auditEventPublisher.start();
+		return auditEventPublisher;
+	}
+
+	// The publisher reuses its batch list, so sizes are recorded at call time.
+	private void recordBatches(CountDownLatch release) {
+		Mockito.when(sqsPublishingService.sendMessageBatch(Mockito.anyList())).thenAnswer(invocation -> {
+			batchSizes.add(((List<?>) invocation.getArgument(0)).size());
+			release.await(5, TimeUnit.SECONDS);
+			return new ArrayList<>();
+		});
+	}
+
+	private static AuditDTO audit(String endpoint) {
+		AuditDTO auditDTO = new AuditDTO();
+		auditDTO.setRequestActionEndpoint(endpoint);
+		return auditDTO;
+	}
+
+	private void awaitBatches(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (batchSizes.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (auditEventPublisher != null) {
+			auditEventPublisher.shutdown();
+		}
+	}
+
+	@Test
+	void publish_SendsFullBatchesOfAtMostTen() throws Exception {
+		recordBatches(new CountDownLatch(0));
+		AuditEventPublisher publisher = startPublisher(64, 50, 60000, AuditOverflowPolicy.DROP);
+
+		for (int i = 0; i < 25; i++) {
+			assertTrue(publisher.publish(audit("/api/" + i)));
+		}
+		awaitBatches(2);
+		assertEquals(List.of(10, 10), batchSizes);
+
+		publisher.shutdown();
+		assertEquals(List.of(10, 10, 5), batchSizes);
+		Mockito.verify(sqsPublishingService, Mockito.never()).sendMessage(Mockito.any());
+	}
+
+	@Test
+	void publish_FlushesPartialBatchAfterInterval() throws Exception {
+		recordBatches(new CountDownLatch(0));
+		AuditEventPublisher publisher = startPublisher(64, 10, 50, AuditOverflowPolicy.DROP);
+
+		publisher.publish(audit("/api/1"));
+		publisher.publish(audit("/api/2"));
+		publisher.publish(audit("/api/3"));
+
+		awaitBatches(1);
+		assertEquals(List.of(3), batchSizes);
+	}
+
+	@Test
+	void publish_DropPolicySpoolsWhenBufferFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		recordBatches(release);
+		AuditEventPublisher publisher = startPublisher(2, 1, 60000, AuditOverflowPolicy.DROP);
+
+		publisher.publish(audit("/api/held"));
+		awaitBatches(1);
+		assertTrue(publisher.publish(audit("/api/1")));
+		assertTrue(publisher.publish(audit("/api/2")));
+		AuditDTO overflow = audit("/api/3");
+		Mockito.when(auditSpool.append(overflow)).thenReturn(true);
+		assertFalse(publisher.publish(overflow));
+		Mockito.verify(auditSpool).append(overflow);
+		assertFalse(publisher.publish(audit("/api/4")));
+		assertEquals(1.0, meterRegistry.get("audit.publisher.dropped").counter().count());
+
+		release.countDown();
+		publisher.shutdown();
+		assertEquals(List.of(1, 1, 1), batchSizes);
+	}
+
+	@Test
+	void publish_BlockPolicyWaitsForSpace() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		recordBatches(release);
+		AuditEventPublisher publisher = startPublisher(2, 1, 60000, AuditOverflowPolicy.BLOCK);
+
+		publisher.publish(audit("/api/held"));
+		awaitBatches(1);
+		publisher.publish(audit("/api/1"));
+		publisher.publish(audit("/api/2"));
+		CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> publisher.publish(audit("/api/3")));
+
+		Thread.sleep(100);
+		assertFalse(blocked.isDone());
+		release.countDown();
+		assertTrue(blocked.get(5, TimeUnit.SECONDS));
+
+		publisher.shutdown();
+		assertEquals(List.of(1, 1, 1, 1), batchSizes);
+	}
+
+	@Test
+	void shutdown_FlushesBufferedAuditsThenSendsDirectly() throws Exception {
+		recordBatches(new CountDownLatch(0));
+		AuditEventPublisher publisher = startPublisher(64, 10, 60000, AuditOverflowPolicy.DROP);
+
+		publisher.publish(audit("/api/1"));
+		publisher.publish(audit("/api/2"));
+		publisher.shutdown();
+
+		assertEquals(List.of(2), batchSizes);
+
+		AuditDTO late = audit("/api/late");
+		assertTrue(publisher.publish(late));
+		Mockito.verify(sqsPublishingService).sendMessage(late);
+		Mockito.verify(auditSpool).append(late);
+	}
+
+	@Test
+	void flush_SpoolsAuditsSqsDidNotTake() throws Exception {
+		AuditDTO accepted = audit("/api/accepted");
+		AuditDTO rejected = audit("/api/rejected");
+		Mockito.when(sqsPublishingService.sendMessageBatch(Mockito.anyList())).thenReturn(List.of(rejected))
+				.thenThrow(new RuntimeException("SQS down"));
+		// AuditSpool.append is synchronized, so a timed verify would hold the mock's monitor against the publisher.
+		List<AuditDTO> spooled = new CopyOnWriteArrayList<>();
+		Mockito.when(auditSpool.append(Mockito.any())).thenAnswer(invocation -> spooled.add(invocation.getArgument(0)));
+		AuditEventPublisher publisher = startPublisher(64, 2, 60000, AuditOverflowPolicy.DROP);
+
+		publisher.publish(accepted);
+		publisher.publish(rejected);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (spooled.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(List.of(rejected), spooled);
+
+		AuditDTO unsent = audit("/api/unsent");
+		publisher.publish(unsent);
+		publisher.shutdown();
+		assertEquals(List.of(rejected, unsent), spooled);
+		assertEquals(0.0, meterRegistry.get("audit.publisher.dropped").counter().count());
+	}
+
+}
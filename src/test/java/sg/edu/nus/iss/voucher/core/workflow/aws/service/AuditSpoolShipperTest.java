@@ -0,0 +1,77 @@
+package sg.edu.nus.iss.voucher.core.workflow.aws.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
+
+public class AuditSpoolShipperTest {
+
+	@TempDir
+	Path spoolDirectory;
+
+	private SQSPublishingService sqsPublishingService = Mockito.mock(SQSPublishingService.class);
+
+	private static AuditDTO audit(String endpoint) {
+		AuditDTO auditDTO = new AuditDTO();
+		auditDTO.setRequestActionEndpoint(endpoint);
+		return auditDTO;
+	}
+
+	@Test
+	void ship_SendsAndDeletesAcknowledgedSegments() throws Exception {
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 4096);
+		AuditSpoolShipper shipper = new AuditSpoolShipper(auditSpool, sqsPublishingService, 1000, 60000);
+		auditSpool.append(audit("/api/1"));
+		auditSpool.append(audit("/api/2"));
+		Mockito.when(sqsPublishingService.sendMessageBatch(Mockito.anyList())).thenReturn(new ArrayList<>());
+
+		assertEquals(2, shipper.ship());
+
+		Mockito.verify(sqsPublishingService).sendMessageBatch(Mockito.argThat(audits -> audits.size() == 2));
+		assertTrue(auditSpool.sealedSegments().isEmpty());
+	}
+
+	@Test
+	void ship_KeepsSegmentAndBacksOffWhileSqsIsDown() throws Exception {
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 4096);
+		AuditSpoolShipper shipper = new AuditSpoolShipper(auditSpool, sqsPublishingService, 60000, 60000);
+		auditSpool.append(audit("/api/1"));
+		Mockito.when(sqsPublishingService.sendMessageBatch(Mockito.anyList()))
+				.thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+
+		assertEquals(0, shipper.ship());
+		assertEquals(0, shipper.ship());
+
+		Mockito.verify(sqsPublishingService, Mockito.times(1)).sendMessageBatch(Mockito.anyList());
+		assertEquals(1, auditSpool.sealedSegments().size());
+	}
+
+	@Test
+	void ship_RespoolsOnlyRejectedAudits() throws Exception {
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 4096);
+		AuditSpoolShipper shipper = new AuditSpoolShipper(auditSpool, sqsPublishingService, 0, 0);
+		auditSpool.append(audit("/api/accepted"));
+		auditSpool.append(audit("/api/rejected"));
+		Mockito.when(sqsPublishingService.sendMessageBatch(Mockito.anyList()))
+				.thenAnswer(invocation -> new ArrayList<>(List.of(((List<AuditDTO>) invocation.getArgument(0)).get(1))))
+				.thenReturn(new ArrayList<>());
+
+		assertEquals(1, shipper.ship());
+		List<Path> segments = auditSpool.sealedSegments();
+		assertEquals(1, segments.size());
+		assertEquals("/api/rejected", auditSpool.read(segments.get(0)).get(0).getRequestActionEndpoint());
+
+		assertEquals(1, shipper.ship());
+		assertTrue(auditSpool.sealedSegments().isEmpty());
+	}
+
+}
@@ -0,0 +1,105 @@
+package sg.edu.nus.iss.voucher.core.workflow.aws.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
+import sg.edu.nus.iss.voucher.core.workflow.enums.HTTPVerb;
+
+public class AuditSpoolTest {
+
+	@TempDir
+	Path spoolDirectory;
+
+	private static AuditDTO audit(String endpoint) {
+		AuditDTO auditDTO = new AuditDTO();
+		auditDTO.setRequestActionEndpoint(endpoint);
+		auditDTO.setRequestType(HTTPVerb.POST);
+		auditDTO.setStatusCode(503);
+		return auditDTO;
+	}
+
+	@Test
+	void append_RoundTripsThroughSealedSegment() throws Exception {
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 4096);
+
+		assertTrue(auditSpool.append(audit("/api/1")));
+		assertTrue(auditSpool.append(audit("/api/2")));
+
+		List<Path> segments = auditSpool.sealedSegments();
+		assertEquals(1, segments.size());
+		List<AuditDTO> auditDTOs = auditSpool.read(segments.get(0));
+		assertEquals(2, auditDTOs.size());
+		assertEquals("/api/2", auditDTOs.get(1).getRequestActionEndpoint());
+		assertEquals(HTTPVerb.POST, auditDTOs.get(1).getRequestType());
+
+		auditSpool.delete(segments.get(0));
+		assertTrue(auditSpool.sealedSegments().isEmpty());
+	}
+
+	@Test
+	void append_RotatesFullSegments() throws Exception {
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 512);
+
+		for (int i = 0; i < 20; i++) {
+			assertTrue(auditSpool.append(audit("/api/" + i)));
+		}
+
+		List<Path> segments = auditSpool.sealedSegments();
+		assertTrue(segments.size() > 1);
+		int total = 0;
+		for (Path segment : segments) {
+			assertEquals(512, Files.size(segment));
+			total += auditSpool.read(segment).size();
+		}
+		assertEquals(20, total);
+		assertEquals("/api/0", auditSpool.read(segments.get(0)).get(0).getRequestActionEndpoint());
+	}
+
+	@Test
+	void append_RejectsAuditLargerThanSegment() throws Exception {
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 64);
+
+		assertFalse(auditSpool.append(audit("/api/" + "x".repeat(100))));
+		assertTrue(auditSpool.sealedSegments().isEmpty());
+	}
+
+	@Test
+	void constructor_RecoversSegmentsFromPreviousRun() throws Exception {
+		AuditSpool previousRun = new AuditSpool(spoolDirectory.toString(), 4096);
+		previousRun.append(audit("/api/before-crash"));
+		previousRun.close();
+
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 4096);
+		auditSpool.append(audit("/api/after-restart"));
+
+		List<Path> segments = auditSpool.sealedSegments();
+		assertEquals(2, segments.size());
+		assertEquals("/api/before-crash", auditSpool.read(segments.get(0)).get(0).getRequestActionEndpoint());
+		assertEquals("/api/after-restart", auditSpool.read(segments.get(1)).get(0).getRequestActionEndpoint());
+	}
+
+	@Test
+	void read_StopsAtTornRecord() throws Exception {
+		AuditSpool auditSpool = new AuditSpool(spoolDirectory.toString(), 4096);
+		auditSpool.append(audit("/api/complete"));
+		Path segment = auditSpool.sealedSegments().get(0);
+
+		byte[] bytes = Files.readAllBytes(segment);
+		int firstLength = ByteBuffer.wrap(bytes).getInt();
+		ByteBuffer.wrap(bytes).putInt(Integer.BYTES + firstLength, 4000);
+		Files.write(segment, bytes);
+
+		assertEquals(1, auditSpool.read(segment).size());
+	}
+
+}
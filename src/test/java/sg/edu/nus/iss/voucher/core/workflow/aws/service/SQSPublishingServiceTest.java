@@ -2,12 +2,16 @@ package sg.edu.nus.iss.voucher.core.workflow.aws.service;
 
 
 import com.amazonaws.services.sqs.AmazonSQS;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
 import com.amazonaws.services.sqs.model.SendMessageRequest;
 import com.amazonaws.services.sqs.model.SendMessageResult;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -18,6 +22,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
@@ -89,4 +96,39 @@ public class SQSPublishingServiceTest {
 
 
     
+    @Test
+    public void testSendMessageBatchSplitsIntoTenEntryCalls() {
+        List<AuditDTO> auditDTOs = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            AuditDTO audit = new AuditDTO();
+            audit.setRemarks("remark " + i);
+            auditDTOs.add(audit);
+        }
+        when(amazonSQS.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(new SendMessageBatchResult());
+
+        List<AuditDTO> failed = sqsPublishingService.sendMessageBatch(auditDTOs);
+
+        ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(amazonSQS, times(3)).sendMessageBatch(requestCaptor.capture());
+        assertEquals(10, requestCaptor.getAllValues().get(0).getEntries().size());
+        assertEquals(10, requestCaptor.getAllValues().get(1).getEntries().size());
+        assertEquals(3, requestCaptor.getAllValues().get(2).getEntries().size());
+        assertTrue(failed.isEmpty());
+        verify(amazonSQS, never()).sendMessage(any(SendMessageRequest.class));
+    }
+
+    @Test
+    public void testSendMessageBatchReturnsRejectedAndFailedAudits() {
+        AuditDTO accepted = new AuditDTO();
+        AuditDTO rejected = new AuditDTO();
+        when(amazonSQS.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(new SendMessageBatchResult()
+                .withFailed(new BatchResultErrorEntry().withId("1").withCode("InternalError").withSenderFault(false)));
+
+        assertEquals(List.of(rejected), sqsPublishingService.sendMessageBatch(List.of(accepted, rejected)));
+
+        when(amazonSQS.sendMessageBatch(any(SendMessageBatchRequest.class))).thenThrow(new RuntimeException("down"));
+
+        assertEquals(2, sqsPublishingService.sendMessageBatch(List.of(accepted, rejected)).size());
+    }
+
 }
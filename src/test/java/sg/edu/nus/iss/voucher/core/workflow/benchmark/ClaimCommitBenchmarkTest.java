@@ -0,0 +1,112 @@
+package sg.edu.nus.iss.voucher.core.workflow.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherRequest;
+import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
+import sg.edu.nus.iss.voucher.core.workflow.entity.Store;
+import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
+import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignRepository;
+import sg.edu.nus.iss.voucher.core.workflow.repository.VoucherRepository;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.ClaimSequencer;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.VoucherService;
+
+// Load benchmark comparing one commit per claim with group commit. Run with:
+//   mvn test -Dtest=ClaimCommitBenchmarkTest -Dbenchmark=true [-Dbenchmark.claims=5000 -Dbenchmark.threads=64]
+// Point spring.datasource.* at MySQL to measure real fsync cost; the in-memory H2 default only shows commit overhead.
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ClaimCommitBenchmarkTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(ClaimCommitBenchmarkTest.class);
+
+	private static final int CLAIMS = Integer.getInteger("benchmark.claims", 2000);
+	private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+
+	@Autowired
+	private VoucherService voucherService;
+
+	@Autowired
+	private ClaimSequencer claimSequencer;
+
+	@Autowired
+	private CampaignRepository campaignRepository;
+
+	@Autowired
+	private VoucherRepository voucherRepository;
+
+	private interface Claimer {
+		void claim(VoucherRequest voucherRequest) throws Exception;
+	}
+
+	@Test
+	void compareCommitStrategies() throws Exception {
+		long perRequestNanos = run("per-request", voucherService::claimVoucher);
+		long groupedNanos = run("grouped", claimSequencer::claimVoucher);
+
+		logger.info("Benchmark {} claims on {} threads: per-request {} claims/s, grouped {} claims/s", CLAIMS, THREADS,
+				throughput(perRequestNanos), throughput(groupedNanos));
+	}
+
+	private long run(String label, Claimer claimer) throws Exception {
+		String campaignId = createCampaign(label);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> futures = new ArrayList<>(CLAIMS);
+			long start = System.nanoTime();
+			for (int i = 0; i < CLAIMS; i++) {
+				VoucherRequest voucherRequest = new VoucherRequest();
+				voucherRequest.setCampaignId(campaignId);
+				voucherRequest.setClaimedBy(label + "-" + i);
+				futures.add(executor.submit(() -> {
+					claimer.claim(voucherRequest);
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			long elapsed = System.nanoTime() - start;
+			assertEquals(CLAIMS, voucherRepository.countClaimedByCampaignId(campaignId));
+			logger.info("Benchmark {}: {} claims in {} ms", label, CLAIMS, elapsed / 1_000_000);
+			return elapsed;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private String createCampaign(String label) {
+		Store store = new Store();
+		store.setStoreName("Benchmark " + label);
+		store.setCreatedBy("benchmark");
+		store.setCreatedDate(LocalDateTime.now());
+
+		Campaign campaign = new Campaign();
+		campaign.setDescription("Benchmark " + label);
+		campaign.setStore(store);
+		campaign.setCampaignStatus(CampaignStatus.PROMOTED);
+		campaign.setNumberOfVouchers(CLAIMS);
+		return campaignRepository.save(campaign).getCampaignId();
+	}
+
+	private long throughput(long nanos) {
+		return CLAIMS * 1_000_000_000L / Math.max(1, nanos);
+	}
+
+}
@@ -1,5 +1,6 @@
 package sg.edu.nus.iss.voucher.core.workflow.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -27,23 +28,27 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import sg.edu.nus.iss.voucher.core.workflow.api.connector.AuthAPICall;
 import sg.edu.nus.iss.voucher.core.workflow.dto.*;
 import sg.edu.nus.iss.voucher.core.workflow.entity.*;
 import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
 import sg.edu.nus.iss.voucher.core.workflow.jwt.JWTService;
+import sg.edu.nus.iss.voucher.core.workflow.jwt.JwtPrincipal;
 import sg.edu.nus.iss.voucher.core.workflow.pojo.User;
 import sg.edu.nus.iss.voucher.core.workflow.service.impl.*;
 import sg.edu.nus.iss.voucher.core.workflow.strategy.impl.CampaignValidationStrategy;
@@ -106,14 +111,14 @@ public class CampaignControllerTest {
 	void setUp() throws Exception {
 		 campaign1 = new Campaign("1", "new campaign 1", store, CampaignStatus.CREATED, null, 10, 0,
 					null, null, 10, LocalDateTime.now(), LocalDateTime.now(), userId, "", LocalDateTime.now(),
-					LocalDateTime.now(), false);
+					LocalDateTime.now(), false, 0, false, 1, false, 0);
 		 campaign2 = new Campaign("2", "new campaign 2", store, CampaignStatus.CREATED, null, 10, 0,
 					null, null, 10, LocalDateTime.now(), LocalDateTime.now(), userId, "", LocalDateTime.now(),
-					LocalDateTime.now(),  false);
+					LocalDateTime.now(),  false, 0, false, 1, false, 0);
 		 
 		messagePayload = new CampaignRequest( "1", "1", userId);
-		mockCampaigns.add(DTOMapper.toCampaignDTO(campaign1, null));
-		mockCampaigns.add(DTOMapper.toCampaignDTO(campaign2, null));
+		mockCampaigns.add(DTOMapper.toCampaignDTO(campaign1));
+		mockCampaigns.add(DTOMapper.toCampaignDTO(campaign2));
 
 		User mockUser = new User();
 		mockUser.setEmail("eleven.11@gmail.com");
@@ -123,10 +128,11 @@ public class CampaignControllerTest {
 
 		when(jwtService.extractUserID("mock.jwt.token")).thenReturn(userId);
 
-		UserDetails mockUserDetails = mock(UserDetails.class);
-		when(jwtService.getUserDetail(anyString(), anyString())).thenReturn(mockUserDetails);
+		Claims mockClaims = Jwts.claims().subject(userId).build();
+		when(jwtService.extractAllClaims(anyString())).thenReturn(mockClaims);
 
-		when(jwtService.validateToken(anyString(), eq(mockUserDetails))).thenReturn(true);
+		when(jwtService.authenticate(anyString(), eq(mockClaims)))
+				.thenReturn(new JwtPrincipal(userId, "eleven.11@gmail.com", "Eleven", "MERCHANT"));
 
 		when(jwtService.getUserIdByAuthHeader(authorizationHeader)).thenReturn(userId);
 		
@@ -168,7 +174,7 @@ public class CampaignControllerTest {
 	    Mockito.when(storeService.findByStoreId(store.getStoreId())).thenReturn(DTOMapper.toStoreDTO(store));
 
 	    Mockito.when(campaignService.create(Mockito.any(Campaign.class)))
-	            .thenReturn(DTOMapper.toCampaignDTO(campaign1, null));
+	            .thenReturn(DTOMapper.toCampaignDTO(campaign1));
 
 	  	
 
@@ -297,7 +303,7 @@ public class CampaignControllerTest {
         when(jsonReader.getMessageFromResponse(mockJsonResponse)).thenReturn(mockMessage);
 		
 		Mockito.when(campaignService.update(Mockito.any(Campaign.class)))
-				.thenReturn(DTOMapper.toCampaignDTO(campaign1, null));
+				.thenReturn(DTOMapper.toCampaignDTO(campaign1));
 
 		mockMvc.perform(MockMvcRequestBuilders.put("/api/core/campaigns/update")
 				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
@@ -370,7 +376,7 @@ public class CampaignControllerTest {
 		
 		Mockito.when(campaignService.findById(campaign1.getCampaignId())).thenReturn(Optional.of(campaign1));
 		Mockito.when(campaignService.promote(campaign1.getCampaignId(), userId,authorizationHeader))
-				.thenReturn(DTOMapper.toCampaignDTO(campaign1, null));
+				.thenReturn(DTOMapper.toCampaignDTO(campaign1));
 
 		mockMvc.perform(MockMvcRequestBuilders
 				.patch("/api/core/campaigns/promote")
@@ -399,6 +405,38 @@ public class CampaignControllerTest {
 	}
 	
 
+	@Test
+	void testGetAllActiveCampaigns_Gzip() throws Exception {
+		Pageable pageable = PageRequest.of(0, 10, Sort.by("startDate").ascending());
+		Map<Long, List<CampaignDTO>> mockCampaignMap = new HashMap<>();
+		mockCampaignMap.put(2L, mockCampaigns);
+		Mockito.when(campaignService.findAllActiveCampaigns("", pageable)).thenReturn(mockCampaignMap);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/core/campaigns").param("page", "0").param("size", "10")
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG));
+	}
+
+	@Test
+	void testGetAllActiveCampaigns_NotModified() throws Exception {
+		Pageable pageable = PageRequest.of(0, 10, Sort.by("startDate").ascending());
+		Map<Long, List<CampaignDTO>> mockCampaignMap = new HashMap<>();
+		mockCampaignMap.put(2L, mockCampaigns);
+		Mockito.when(campaignService.findAllActiveCampaigns("", pageable)).thenReturn(mockCampaignMap);
+
+		MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/core/campaigns").param("page", "0")
+				.param("size", "10")).andExpect(MockMvcResultMatchers.status().isOk()).andReturn();
+		List<String> eTags = result.getResponse().getHeaders(HttpHeaders.ETAG);
+		assertEquals(1, eTags.size());
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/core/campaigns").param("page", "0").param("size", "10")
+				.header(HttpHeaders.IF_NONE_MATCH, eTags.get(0)))
+				.andExpect(MockMvcResultMatchers.status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
 	@Test
 	void testGetAllActiveCampaigns_whenNoCampaignsFound() throws Exception {
 
@@ -625,7 +663,7 @@ public class CampaignControllerTest {
 	void testGetByCampaignId() throws Exception {
 
 		Mockito.when(campaignService.findByCampaignId(campaign1.getCampaignId()))
-				.thenReturn(DTOMapper.toCampaignDTO(campaign1, null));
+				.thenReturn(DTOMapper.toCampaignDTO(campaign1));
 		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/campaigns/Id")
 				.header("Authorization", authorizationHeader)
 				.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(messagePayload)))
@@ -651,7 +689,7 @@ public class CampaignControllerTest {
 	void testGetByCampaignId_campaignNotFound() throws Exception {
 		
 	    Mockito.when(campaignService.findByCampaignId(campaign1.getCampaignId()))
-		.thenReturn(DTOMapper.toCampaignDTO(campaign2, null));
+		.thenReturn(DTOMapper.toCampaignDTO(campaign2));
 	    
 	    mockMvc.perform(MockMvcRequestBuilders.post("/api/core/campaigns/Id")
 	            .header("Authorization", authorizationHeader)
@@ -9,6 +9,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -27,15 +28,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,6 +45,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import sg.edu.nus.iss.voucher.core.workflow.api.connector.AuthAPICall;
 import sg.edu.nus.iss.voucher.core.workflow.dto.StoreDTO;
 import sg.edu.nus.iss.voucher.core.workflow.dto.StoreRequest;
@@ -50,6 +54,7 @@ import sg.edu.nus.iss.voucher.core.workflow.dto.ValidationResult;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Store;
 import sg.edu.nus.iss.voucher.core.workflow.enums.UserRoleType;
 import sg.edu.nus.iss.voucher.core.workflow.jwt.JWTService;
+import sg.edu.nus.iss.voucher.core.workflow.jwt.JwtPrincipal;
 import sg.edu.nus.iss.voucher.core.workflow.search.StoreSearchRequest;
 import sg.edu.nus.iss.voucher.core.workflow.service.impl.StoreService;
 import sg.edu.nus.iss.voucher.core.workflow.service.impl.UserValidatorService;
@@ -118,10 +123,11 @@ public class StoreControllerTest {
 
 		when(jwtService.extractUserID("mock.jwt.token")).thenReturn(userId);
 
-		UserDetails mockUserDetails = mock(UserDetails.class);
-		when(jwtService.getUserDetail(anyString(), anyString())).thenReturn(mockUserDetails);
+		Claims mockClaims = Jwts.claims().subject(userId).build();
+		when(jwtService.extractAllClaims(anyString())).thenReturn(mockClaims);
 
-		when(jwtService.validateToken(anyString(), eq(mockUserDetails))).thenReturn(true);
+		when(jwtService.authenticate(anyString(), eq(mockClaims)))
+				.thenReturn(new JwtPrincipal(userId, "eleven.11@gmail.com", "Eleven", "MERCHANT"));
 
 		when(jwtService.getUserIdByAuthHeader(authorizationHeader)).thenReturn(userId);
 
@@ -176,6 +182,32 @@ public class StoreControllerTest {
 
 	}
 	
+	@Test
+	void testGetAllActiveStore_NotModified() throws Exception {
+		Pageable pageable = PageRequest.of(0, 10, Sort.by("storeName").ascending());
+		Map<Long, List<StoreDTO>> mockStoreMap = new HashMap<>();
+		mockStoreMap.put(0L, mockStores);
+		Mockito.when(storeService.getAllActiveStoreList("", pageable)).thenReturn(mockStoreMap);
+		Mockito.when(storeService.findLastModifiedDate()).thenReturn(LocalDateTime.of(2025, 1, 1, 10, 0));
+		Mockito.when(storeService.countStores()).thenReturn(2L);
+
+		MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/api/core/stores").param("page", "0")
+				.param("size", "10").header("Authorization", authorizationHeader))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.LAST_MODIFIED)).andReturn();
+		String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/core/stores").param("page", "0").param("size", "10")
+				.header("Authorization", authorizationHeader).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(MockMvcResultMatchers.status().isNotModified());
+		Mockito.verify(storeService, Mockito.times(1)).getAllActiveStoreList("", pageable);
+
+		Mockito.when(storeService.countStores()).thenReturn(3L);
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/core/stores").param("page", "0").param("size", "10")
+				.header("Authorization", authorizationHeader).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+	}
+	
 	@Test
 	void testGetAllActiveStore_ShouldReturnInternalServerError_WhenExceptionOccurs() throws Exception {
 	    Pageable pageable = PageRequest.of(0, 10, Sort.by("storeName").ascending());
@@ -25,8 +25,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -38,13 +39,20 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import sg.edu.nus.iss.voucher.core.workflow.api.connector.AuthAPICall;
 import sg.edu.nus.iss.voucher.core.workflow.dto.*; 
 import sg.edu.nus.iss.voucher.core.workflow.entity.*; 
 import sg.edu.nus.iss.voucher.core.workflow.enums.*;
+import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignFullyClaimedException;
 import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignNotFoundException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.ClaimOutcomeUnknownException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyClaimedException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyConsumedException;
 import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherNotFoundException;
 import sg.edu.nus.iss.voucher.core.workflow.jwt.JWTService;
+import sg.edu.nus.iss.voucher.core.workflow.jwt.JwtPrincipal;
 import sg.edu.nus.iss.voucher.core.workflow.service.impl.*;
 import sg.edu.nus.iss.voucher.core.workflow.utility.DTOMapper;
 import sg.edu.nus.iss.voucher.core.workflow.utility.JSONReader;
@@ -83,6 +91,9 @@ public class VoucherControllerTest {
 	@MockitoBean
 	private AuditService auditService;
 
+	@MockitoBean
+	private FlashSaleClaimService flashSaleClaimService;
+
 	private static List<VoucherDTO> mockVouchers = new ArrayList<>();
 	private static Store store = new Store("1", "MUJI",
 			"MUJI offers a wide variety of good quality items from stationery to household items and apparel.", "Test",
@@ -90,7 +101,7 @@ public class VoucherControllerTest {
 			null, null, null, null, false, "M1", "");
 	private static Campaign campaign = new Campaign("1", "new campaign 1", store, CampaignStatus.CREATED, null, 10, 0,
 			null, null, 10, LocalDateTime.now(), LocalDateTime.now(), "U1", "", LocalDateTime.now(),
-			LocalDateTime.now(), false);
+			LocalDateTime.now(), false, 0, false, 1, false, 0);
 	private static Voucher voucher1;
 	private static Voucher voucher2 ;
 
@@ -112,10 +123,11 @@ public class VoucherControllerTest {
 
 		when(jwtService.extractUserID("mock.jwt.token")).thenReturn(userId);
 
-		UserDetails mockUserDetails = mock(UserDetails.class);
-		when(jwtService.getUserDetail(anyString(), anyString())).thenReturn(mockUserDetails);
+		Claims mockClaims = Jwts.claims().subject(userId).build();
+		when(jwtService.extractAllClaims(anyString())).thenReturn(mockClaims);
 
-		when(jwtService.validateToken(anyString(), eq(mockUserDetails))).thenReturn(true);
+		when(jwtService.authenticate(anyString(), eq(mockClaims)))
+				.thenReturn(new JwtPrincipal(userId, "eleven.11@gmail.com", "Eleven", "MERCHANT"));
 
 		when(jwtService.getUserIdByAuthHeader(authorizationHeader)).thenReturn(userId);
 		
@@ -232,6 +244,39 @@ public class VoucherControllerTest {
 				eq("Voucher has been successfully claimed."), eq(authorizationHeader));
 	}
 
+	@Test
+	void testClaimVoucher_IdempotentReplay() throws Exception {
+		String campaignId = "campaign123";
+		String claimedBy = "user123";
+		String authorizationHeader = "Bearer test-token";
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaignId);
+		voucherRequest.setClaimedBy(claimedBy);
+
+		Mockito.when(voucherService.validateUser(claimedBy, authorizationHeader)).thenReturn("");
+		Campaign campaign = new Campaign();
+		campaign.setCampaignId(campaignId);
+		Mockito.when(voucherService.validateCampaign(campaignId)).thenReturn(campaign);
+		Mockito.when(voucherService.isVoucherAlreadyClaimed(claimedBy, campaign)).thenReturn(false);
+		Mockito.when(voucherService.isCampaignFullyClaimed(campaignId, campaign)).thenReturn(false);
+		VoucherDTO voucherDTO = new VoucherDTO();
+		voucherDTO.setVoucherId("voucher123");
+		Mockito.when(voucherService.claimVoucher(Mockito.any())).thenReturn(voucherDTO);
+
+		for (int i = 0; i < 2; i++) {
+			mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim")
+					.header("Authorization", authorizationHeader).header("Idempotency-Key", "retry-1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(new ObjectMapper().writeValueAsString(voucherRequest)))
+					.andExpect(MockMvcResultMatchers.status().isOk())
+					.andExpect(MockMvcResultMatchers.jsonPath("$.data.voucherId").value("voucher123"));
+		}
+
+		Mockito.verify(voucherService, Mockito.times(1)).validateUser(claimedBy, authorizationHeader);
+		Mockito.verify(voucherService, Mockito.times(1)).claimVoucher(Mockito.any());
+	}
+
 	@Test
 	void testClaimVoucher_VoucherAlreadyClaimed() throws Exception {
 		String campaignId = "campaign123";
@@ -287,6 +332,192 @@ public class VoucherControllerTest {
 				eq("Campaign has been fully claimed."), eq(authorizationHeader));
 	}
 
+	@Test
+	void testClaimVoucher_CampaignFullyClaimedOnReserve() throws Exception {
+		String campaignId = "campaign123";
+		String claimedBy = "user123";
+		String authorizationHeader = "Bearer test-token";
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaignId);
+		voucherRequest.setClaimedBy(claimedBy);
+
+		Mockito.when(voucherService.validateUser(claimedBy, authorizationHeader)).thenReturn("");
+		Campaign campaign = new Campaign();
+		campaign.setCampaignId(campaignId);
+		Mockito.when(voucherService.validateCampaign(campaignId)).thenReturn(campaign);
+		Mockito.when(voucherService.isVoucherAlreadyClaimed(claimedBy, campaign)).thenReturn(false);
+		Mockito.when(voucherService.isCampaignFullyClaimed(campaignId, campaign)).thenReturn(false);
+		Mockito.when(voucherService.claimVoucher(Mockito.any()))
+				.thenThrow(new CampaignFullyClaimedException("Campaign has been fully claimed: " + campaignId));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(voucherRequest)))
+				.andExpect(MockMvcResultMatchers.status().isUnauthorized())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.success").value(false))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Campaign has been fully claimed."));
+
+		Mockito.verify(auditService).logAudit(Mockito.any(AuditDTO.class), eq(401),
+				eq("Campaign has been fully claimed."), eq(authorizationHeader));
+	}
+
+	@Test
+	void testClaimVoucher_FlashSaleQueued() throws Exception {
+		String campaignId = "campaign123";
+		String claimedBy = "user123";
+		String authorizationHeader = "Bearer test-token";
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaignId);
+		voucherRequest.setClaimedBy(claimedBy);
+
+		Mockito.when(voucherService.validateUser(claimedBy, authorizationHeader)).thenReturn("");
+		Campaign campaign = new Campaign();
+		campaign.setCampaignId(campaignId);
+		campaign.setFlashSale(true);
+		Mockito.when(voucherService.validateCampaign(campaignId)).thenReturn(campaign);
+		Mockito.when(voucherService.isVoucherAlreadyClaimed(claimedBy, campaign)).thenReturn(false);
+		Mockito.when(voucherService.isCampaignFullyClaimed(campaignId, campaign)).thenReturn(false);
+
+		ClaimTicketDTO claimTicketDTO = new ClaimTicketDTO();
+		claimTicketDTO.setTicketId("T1");
+		claimTicketDTO.setCampaignId(campaignId);
+		claimTicketDTO.setClaimedBy(claimedBy);
+		Mockito.when(flashSaleClaimService.enqueue(Mockito.any())).thenReturn(claimTicketDTO);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(voucherRequest)))
+				.andExpect(MockMvcResultMatchers.status().isAccepted())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.success").value(true))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.data.ticketId").value("T1"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.data.status").value("QUEUED"));
+
+		Mockito.verify(voucherService, Mockito.never()).claimVoucher(Mockito.any());
+	}
+
+	@Test
+	void testClaimVoucher_FlashSaleQueueFull() throws Exception {
+		String campaignId = "campaign123";
+		String claimedBy = "user123";
+		String authorizationHeader = "Bearer test-token";
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaignId);
+		voucherRequest.setClaimedBy(claimedBy);
+
+		Mockito.when(voucherService.validateUser(claimedBy, authorizationHeader)).thenReturn("");
+		Campaign campaign = new Campaign();
+		campaign.setCampaignId(campaignId);
+		campaign.setFlashSale(true);
+		Mockito.when(voucherService.validateCampaign(campaignId)).thenReturn(campaign);
+		Mockito.when(voucherService.isVoucherAlreadyClaimed(claimedBy, campaign)).thenReturn(false);
+		Mockito.when(voucherService.isCampaignFullyClaimed(campaignId, campaign)).thenReturn(false);
+		Mockito.when(flashSaleClaimService.enqueue(Mockito.any())).thenReturn(null);
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(voucherRequest)))
+				.andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.success").value(false));
+	}
+
+	@Test
+	void testBulkClaimVouchers() throws Exception {
+		String authorizationHeader = "Bearer test-token";
+		VoucherBulkClaimRequest bulkClaimRequest = new VoucherBulkClaimRequest();
+		bulkClaimRequest.setClaimedBy("user123");
+		bulkClaimRequest.setCampaignIds(List.of("A", "B"));
+
+		Mockito.when(voucherService.validateUser("user123", authorizationHeader)).thenReturn("");
+		Mockito.when(voucherService.claimVouchersForUser("user123", List.of("A", "B"))).thenReturn(List.of(
+				new VoucherClaimResult("A", "user123", true, "Voucher has been successfully claimed.",
+						DTOMapper.toVoucherDTO(voucher1), HttpStatus.OK),
+				new VoucherClaimResult("B", "user123", false, "Campaign has been fully claimed.", null,
+						HttpStatus.UNAUTHORIZED)));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim/bulk")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(bulkClaimRequest)))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.totalRecord").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.data[0].claimed").value(true))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.data[1].status").value("UNAUTHORIZED"));
+
+		Mockito.verify(voucherService, Mockito.times(1)).validateUser("user123", authorizationHeader);
+	}
+
+	@Test
+	void testBulkClaimVouchers_RetriesAfterDuplicateCaughtOnSave() throws Exception {
+		String authorizationHeader = "Bearer test-token";
+		VoucherBulkClaimRequest bulkClaimRequest = new VoucherBulkClaimRequest();
+		bulkClaimRequest.setClaimedBy("user123");
+		bulkClaimRequest.setCampaignIds(List.of("A", "B"));
+
+		Mockito.when(voucherService.validateUser("user123", authorizationHeader)).thenReturn("");
+		Mockito.when(voucherService.claimVouchersForUser("user123", List.of("A", "B")))
+				.thenThrow(new VoucherAlreadyClaimedException("Voucher has already been claimed: user123"))
+				.thenReturn(List.of(
+						new VoucherClaimResult("A", "user123", true, "Voucher has been successfully claimed.",
+								DTOMapper.toVoucherDTO(voucher1), HttpStatus.OK),
+						new VoucherClaimResult("B", "user123", false, "Voucher has already been claimed.", null,
+								HttpStatus.BAD_REQUEST)));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim/bulk")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(bulkClaimRequest)))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.totalRecord").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.data[1].status").value("BAD_REQUEST"));
+
+		Mockito.verify(voucherService, Mockito.times(2)).claimVouchersForUser("user123", List.of("A", "B"));
+	}
+
+	@Test
+	void testBulkClaimVouchers_NoCampaigns() throws Exception {
+		VoucherBulkClaimRequest bulkClaimRequest = new VoucherBulkClaimRequest();
+		bulkClaimRequest.setClaimedBy("user123");
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim/bulk")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(bulkClaimRequest)))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.success").value(false));
+
+		Mockito.verify(voucherService, Mockito.never()).claimVouchersForUser(Mockito.any(), Mockito.any());
+	}
+
+	@Test
+	void testGetClaimTicket() throws Exception {
+		ClaimTicketDTO claimTicketDTO = new ClaimTicketDTO();
+		claimTicketDTO.setTicketId("T1");
+		claimTicketDTO.setStatus(ClaimTicketStatus.CLAIMED);
+		claimTicketDTO.setVoucher(DTOMapper.toVoucherDTO(voucher1));
+		Mockito.when(flashSaleClaimService.findTicket("T1", "testUser", 5000)).thenReturn(claimTicketDTO);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/core/vouchers/claim/tickets/T1").param("waitMs", "5000")
+				.header("Authorization", authorizationHeader))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.data.status").value("CLAIMED"))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.data.voucher.voucherId").value(voucher1.getVoucherId()))
+				.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "W/\"CLAIMED\""));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/core/vouchers/claim/tickets/T1").param("waitMs", "5000")
+				.header("Authorization", authorizationHeader).header(HttpHeaders.IF_NONE_MATCH, "W/\"CLAIMED\""))
+				.andExpect(MockMvcResultMatchers.status().isNotModified());
+	}
+
+	@Test
+	void testGetClaimTicket_NotFound() throws Exception {
+		Mockito.when(flashSaleClaimService.findTicket("T2", "testUser", 0)).thenReturn(null);
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/api/core/vouchers/claim/tickets/T2")
+				.header("Authorization", authorizationHeader))
+				.andExpect(MockMvcResultMatchers.status().isNotFound())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.success").value(false));
+	}
+
 	@Test
 	void testClaimVoucher_CampaignNotFound() throws Exception {
 		String campaignId = "campaign123";
@@ -312,6 +543,54 @@ public class VoucherControllerTest {
 				eq(authorizationHeader));
 	}
 	
+	@Test
+	void testClaimVoucher_OutcomeUnknown() throws Exception {
+		String campaignId = "campaign123";
+		String claimedBy = "user123";
+		String authorizationHeader = "Bearer test-token";
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaignId);
+		voucherRequest.setClaimedBy(claimedBy);
+
+		Mockito.when(voucherService.validateUser(claimedBy, authorizationHeader)).thenReturn("");
+		Campaign campaign = new Campaign();
+		campaign.setCampaignId(campaignId);
+		Mockito.when(voucherService.validateCampaign(campaignId)).thenReturn(campaign);
+		Mockito.when(voucherService.claimVoucher(Mockito.any()))
+				.thenThrow(new ClaimOutcomeUnknownException("Claim for campaign campaign123 is still being processed."));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(voucherRequest)))
+				.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.success").value(false));
+	}
+
+	@Test
+	void testClaimVoucher_DuplicateCaughtOnSave() throws Exception {
+		String campaignId = "campaign123";
+		String claimedBy = "user123";
+		String authorizationHeader = "Bearer test-token";
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaignId);
+		voucherRequest.setClaimedBy(claimedBy);
+
+		Mockito.when(voucherService.validateUser(claimedBy, authorizationHeader)).thenReturn("");
+		Campaign campaign = new Campaign();
+		campaign.setCampaignId(campaignId);
+		Mockito.when(voucherService.validateCampaign(campaignId)).thenReturn(campaign);
+		Mockito.when(voucherService.claimVoucher(Mockito.any()))
+				.thenThrow(new VoucherAlreadyClaimedException("Voucher has already been claimed: campaign123"));
+
+		mockMvc.perform(MockMvcRequestBuilders.post("/api/core/vouchers/claim")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(voucherRequest)))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.message").value("Voucher has already been claimed."));
+	}
+
 	@Test
 	void testClaimVoucher_ExceptionHandling() throws Exception {
 	    String campaignId = "campaign123";
@@ -584,11 +863,8 @@ public class VoucherControllerTest {
 	@Test
 	void testConsumeVoucher_VoucherAlreadyConsumed() throws Exception {
 	   
-	    VoucherDTO voucherDTO = DTOMapper.toVoucherDTO(voucher1);
-	    voucherDTO.setVoucherStatus(VoucherStatus.CONSUMED);
- 
-	    Mockito.when(voucherService.findByVoucherId(voucher1.getVoucherId()))
-	            .thenReturn(voucherDTO);
+	    Mockito.when(voucherService.consumeVoucher(voucher1.getVoucherId()))
+	            .thenThrow(new VoucherAlreadyConsumedException("Voucher has already been consumed: " + voucher1.getVoucherId()));
  
 	    mockMvc.perform(
 	            MockMvcRequestBuilders.patch("/api/core/vouchers/consume")
@@ -605,7 +881,7 @@ public class VoucherControllerTest {
 	@Test
 	void testConsumeVoucher_VoucherNotFound() throws Exception {
 	    
-	    Mockito.when(voucherService.findByVoucherId(voucher1.getVoucherId()))
+	    Mockito.when(voucherService.consumeVoucher(voucher1.getVoucherId()))
 	            .thenThrow(new VoucherNotFoundException("Voucher not found"));
 
 	    mockMvc.perform(
@@ -669,6 +945,40 @@ public class VoucherControllerTest {
 	            .andDo(print());
 	}
 
-	
+	@Test
+	void testConsumeVouchers_Batch() throws Exception {
+		VoucherBatchConsumeRequest batchConsumeRequest = new VoucherBatchConsumeRequest();
+		batchConsumeRequest.setVoucherIds(List.of("1", "2"));
+
+		Mockito.when(voucherService.consumeVouchers(List.of("1", "2"))).thenReturn(List.of(
+				new VoucherConsumeResult("1", true, "Voucher has been successfully consumed.", DTOMapper.toVoucherDTO(voucher1),
+						HttpStatus.OK),
+				new VoucherConsumeResult("2", false, "Voucher has already been consumed.", null, HttpStatus.UNAUTHORIZED)));
+
+		mockMvc.perform(MockMvcRequestBuilders.patch("/api/core/vouchers/consume/batch")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(batchConsumeRequest)))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(jsonPath("$.totalRecord").value(1))
+				.andExpect(jsonPath("$.data[0].consumed").value(true))
+				.andExpect(jsonPath("$.data[1].status").value("UNAUTHORIZED"));
+	}
+
+	@Test
+	void testConsumeVouchers_BatchTooLarge() throws Exception {
+		VoucherBatchConsumeRequest batchConsumeRequest = new VoucherBatchConsumeRequest();
+		List<String> voucherIds = new ArrayList<>();
+		for (int i = 0; i < 201; i++) {
+			voucherIds.add("V" + i);
+		}
+		batchConsumeRequest.setVoucherIds(voucherIds);
+
+		mockMvc.perform(MockMvcRequestBuilders.patch("/api/core/vouchers/consume/batch")
+				.header("Authorization", authorizationHeader).contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(batchConsumeRequest)))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		Mockito.verify(voucherService, Mockito.never()).consumeVouchers(Mockito.any());
+	}
 
 }
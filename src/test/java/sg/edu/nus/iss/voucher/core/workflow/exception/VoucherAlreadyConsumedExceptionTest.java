@@ -0,0 +1,22 @@
+package sg.edu.nus.iss.voucher.core.workflow.exception;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class VoucherAlreadyConsumedExceptionTest {
+	@Test
+    void testConstructor() {
+         
+        String errorMessage = "Voucher has already been consumed";
+        VoucherAlreadyConsumedException exception = new VoucherAlreadyConsumedException(errorMessage);
+
+        // Verify that the message is correctly set
+        assertEquals(errorMessage, exception.getMessage());
+    }
+}
@@ -0,0 +1,200 @@
+package sg.edu.nus.iss.voucher.core.workflow.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import sg.edu.nus.iss.voucher.core.workflow.configuration.JWTConfig;
+import sg.edu.nus.iss.voucher.core.workflow.pojo.User;
+import sg.edu.nus.iss.voucher.core.workflow.utility.JSONReader;
+
+public class JWTServiceTest {
+
+	private KeyPair keyPair;
+
+	private JWTConfig jwtConfig;
+
+	private JSONReader jsonReader;
+
+	private JWTService jwtService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		keyPair = generator.generateKeyPair();
+
+		jwtConfig = Mockito.mock(JWTConfig.class);
+		Mockito.when(jwtConfig.getJWTPubliceKey())
+				.thenReturn(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+		jsonReader = Mockito.mock(JSONReader.class);
+		jwtService = new JWTService(jwtConfig, jsonReader, new TokenRevocationList(List.of(), 900), 100, false, 900);
+	}
+
+	@AfterEach
+	void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	private void mockActiveUser(String email) {
+		JSONObject response = new JSONObject();
+		User user = new User();
+		user.setEmail(email);
+		user.setRole("MERCHANT");
+		Mockito.when(jsonReader.getActiveUser(Mockito.anyString(), Mockito.anyString())).thenReturn(response);
+		Mockito.when(jsonReader.getSuccessFromResponse(response)).thenReturn(true);
+		Mockito.when(jsonReader.getUserObject(response)).thenReturn(user);
+	}
+
+	private String createToken(String userId, long expiresInMillis) {
+		return Jwts.builder().subject(userId).claim(JWTService.USER_EMAIL, userId + "@gmail.com")
+				.claim("userName", "Eleven").expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+				.signWith(keyPair.getPrivate()).compact();
+	}
+
+	@Test
+	void testExtractAllClaims_CachedUntilExpiry() throws Exception {
+		String token = createToken("U1", 60000);
+
+		Claims claims = jwtService.extractAllClaims(token);
+
+		assertEquals("U1", claims.getSubject());
+		assertSame(claims, jwtService.extractAllClaims(token));
+		assertEquals("U1", jwtService.retrieveUserID("Bearer " + token));
+		assertEquals("U1@gmail.com", jwtService.retrieveUserEmail("Bearer " + token));
+		Mockito.verify(jwtConfig, Mockito.times(1)).getJWTPubliceKey();
+	}
+
+	@Test
+	void testExtractAllClaims_NotServedAfterExpiry() throws Exception {
+		String token = createToken("U2", 2000);
+		assertEquals("U2", jwtService.extractUserID(token));
+
+		Thread.sleep(2100);
+
+		assertThrows(ExpiredJwtException.class, () -> jwtService.extractAllClaims(token));
+		assertEquals("U2", jwtService.retrieveUserID("Bearer " + token));
+	}
+
+	@Test
+	void testExtractAllClaims_RejectsForeignSignature() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		String token = Jwts.builder().subject("U3").expiration(new Date(System.currentTimeMillis() + 60000))
+				.signWith(generator.generateKeyPair().getPrivate()).compact();
+
+		assertEquals("Invalid UserID", jwtService.retrieveUserID("Bearer " + token));
+	}
+
+	@Test
+	void testAuthenticate() throws Exception {
+		String token = createToken("U4", 60000);
+		mockActiveUser("U4@gmail.com");
+
+		JwtPrincipal principal = jwtService.authenticate("Bearer " + token, jwtService.extractAllClaims(token));
+
+		assertEquals(new JwtPrincipal("U4", "U4@gmail.com", "Eleven", "MERCHANT"), principal);
+	}
+
+	@Test
+	void testAuthenticate_EmailMismatch() throws Exception {
+		String token = createToken("U5", 60000);
+		mockActiveUser("someone.else@gmail.com");
+
+		assertThrows(JwtException.class,
+				() -> jwtService.authenticate("Bearer " + token, jwtService.extractAllClaims(token)));
+	}
+
+	@Test
+	void testRetrieve_ReadsRequestPrincipal() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/core/stores");
+		request.addHeader("Authorization", "Bearer not.parsed.token");
+		RequestSecurityContext.of(request).authenticated(new JwtPrincipal("U6", "U6@gmail.com", "Six", "CUSTOMER"))
+				.bindTo(request);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		assertEquals("U6", jwtService.retrieveUserID("Bearer not.parsed.token"));
+		assertEquals("U6@gmail.com", jwtService.retrieveUserEmail("Bearer not.parsed.token"));
+		assertEquals("Six", jwtService.retrieveUserName("not.parsed.token"));
+		Mockito.verifyNoInteractions(jwtConfig);
+		assertEquals("Invalid UserID", jwtService.retrieveUserID("Bearer another.token"));
+	}
+
+	private String createTokenWithRole(String userId, Date issuedAt) {
+		return Jwts.builder().subject(userId).claim(JWTService.USER_EMAIL, userId + "@gmail.com")
+				.claim("userName", "Eleven").claim(JWTService.USER_ROLE, "CUSTOMER").issuedAt(issuedAt)
+				.expiration(new Date(System.currentTimeMillis() + 60000)).signWith(keyPair.getPrivate()).compact();
+	}
+
+	@Test
+	void testAuthenticate_LocalClaimsSkipAuthService() throws Exception {
+		TokenRevocationList tokenRevocationList = new TokenRevocationList(List.of(), 900);
+		JWTService localJwtService = new JWTService(jwtConfig, jsonReader, tokenRevocationList, 100, true, 900);
+		String token = createTokenWithRole("U7", new Date());
+
+		JwtPrincipal principal = localJwtService.authenticate("Bearer " + token,
+				localJwtService.extractAllClaims(token));
+
+		assertEquals(new JwtPrincipal("U7", "U7@gmail.com", "Eleven", "CUSTOMER"), principal);
+		Mockito.verifyNoInteractions(jsonReader);
+	}
+
+	@Test
+	void testAuthenticate_LocalClaimsFallBackToAuthService() throws Exception {
+		TokenRevocationList tokenRevocationList = new TokenRevocationList(List.of("U9"), 900);
+		JWTService localJwtService = new JWTService(jwtConfig, jsonReader, tokenRevocationList, 100, true, 900);
+		mockActiveUser("U8@gmail.com");
+
+		String staleToken = createTokenWithRole("U8", new Date(System.currentTimeMillis() - 901000));
+		assertEquals("MERCHANT", localJwtService
+				.authenticate("Bearer " + staleToken, localJwtService.extractAllClaims(staleToken)).role());
+
+		String noRoleToken = createToken("U8", 60000);
+		assertEquals("MERCHANT", localJwtService
+				.authenticate("Bearer " + noRoleToken, localJwtService.extractAllClaims(noRoleToken)).role());
+
+		String revokedToken = createTokenWithRole("U9", new Date());
+		assertThrows(JwtException.class, () -> localJwtService.authenticate("Bearer " + revokedToken,
+				localJwtService.extractAllClaims(revokedToken)));
+
+		Mockito.verify(jsonReader, Mockito.times(3)).getActiveUser(Mockito.anyString(), Mockito.anyString());
+	}
+
+	@Test
+	void testAuthenticate_InactiveUserRevokesLocalClaims() throws Exception {
+		TokenRevocationList tokenRevocationList = new TokenRevocationList(List.of(), 900);
+		JWTService localJwtService = new JWTService(jwtConfig, jsonReader, tokenRevocationList, 100, true, 900);
+		String oldToken = createTokenWithRole("U10", new Date(System.currentTimeMillis() - 60000));
+		JSONObject response = new JSONObject();
+		Mockito.when(jsonReader.getActiveUser(Mockito.anyString(), Mockito.anyString())).thenReturn(response);
+		Mockito.when(jsonReader.getSuccessFromResponse(response)).thenReturn(false);
+
+		assertThrows(Exception.class, () -> localJwtService.authenticate("Bearer " + createToken("U10", 60000),
+				localJwtService.extractAllClaims(createToken("U10", 60000))));
+
+		assertTrue(tokenRevocationList.isRevoked("U10", new Date(System.currentTimeMillis() - 60000)));
+		assertThrows(Exception.class, () -> localJwtService.authenticate("Bearer " + oldToken,
+				localJwtService.extractAllClaims(oldToken)));
+	}
+
+}
@@ -0,0 +1,104 @@
+package sg.edu.nus.iss.voucher.core.workflow.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import sg.edu.nus.iss.voucher.core.workflow.dto.AuditDTO;
+import sg.edu.nus.iss.voucher.core.workflow.enums.HTTPVerb;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.AuditService;
+
+public class JwtFilterTest {
+
+	private JWTService jwtService;
+
+	private AuditService auditService;
+
+	private JwtFilter jwtFilter;
+
+	@BeforeEach
+	void setUp() {
+		jwtService = Mockito.mock(JWTService.class);
+		auditService = Mockito.mock(AuditService.class);
+		Mockito.when(auditService.createAuditDTO(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(),
+				Mockito.any())).thenReturn(new AuditDTO());
+		jwtFilter = new JwtFilter(jwtService, auditService);
+		jwtFilter.activityTypePrefix = "Voucher Core -";
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private MockHttpServletRequest request(String method, String uri, String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.addHeader("Authorization", "Bearer " + token);
+		return request;
+	}
+
+	@Test
+	void testDoFilter_BindsAuthenticatedContext() throws Exception {
+		Claims claims = Jwts.claims().subject("U1").build();
+		JwtPrincipal principal = new JwtPrincipal("U1", "U1@gmail.com", "One", "MERCHANT");
+		Mockito.when(jwtService.extractAllClaims("token-1")).thenReturn(claims);
+		Mockito.when(jwtService.authenticate("Bearer token-1", claims)).thenReturn(principal);
+		MockHttpServletRequest request = request("POST", "/api/core/vouchers/claim", "token-1");
+		MockFilterChain filterChain = new MockFilterChain();
+
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+		RequestSecurityContext context = (RequestSecurityContext) request
+				.getAttribute(RequestSecurityContext.REQUEST_ATTRIBUTE);
+		assertEquals(new RequestSecurityContext("U1", "/api/core/vouchers/claim", HTTPVerb.POST, "Bearer token-1",
+				principal), context);
+		assertEquals(request, filterChain.getRequest());
+	}
+
+	@Test
+	void testDoFilter_AuditsFailureAgainstItsOwnRequest() throws Exception {
+		Claims expiredClaims = Jwts.claims().subject("U2").build();
+		Mockito.when(jwtService.extractAllClaims("expired"))
+				.thenThrow(new ExpiredJwtException(null, expiredClaims, "expired"));
+		Mockito.when(jwtService.extractAllClaims("token-3")).thenReturn(Jwts.claims().subject("U3").build());
+		Mockito.when(jwtService.authenticate(Mockito.eq("Bearer token-3"), Mockito.any()))
+				.thenReturn(new JwtPrincipal("U3", "U3@gmail.com", "Three", "CUSTOMER"));
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		jwtFilter.doFilter(request("PATCH", "/api/core/vouchers/consume", "expired"), response,
+				new MockFilterChain());
+		jwtFilter.doFilter(request("GET", "/api/core/stores", "token-3"), new MockHttpServletResponse(),
+				new MockFilterChain());
+
+		assertEquals(401, response.getStatus());
+		Mockito.verify(auditService).createAuditDTO("U2", "", "Voucher Core -", "/api/core/vouchers/consume",
+				HTTPVerb.PATCH);
+		Mockito.verify(auditService).logAudit(Mockito.any(), Mockito.eq(401), Mockito.eq("JWT token is expired"),
+				Mockito.eq("Bearer expired"));
+		Mockito.verifyNoMoreInteractions(auditService);
+	}
+
+	@Test
+	void testDoFilter_MissingHeader() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/core/stores");
+		MockFilterChain filterChain = new MockFilterChain();
+
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+		assertNull(filterChain.getRequest());
+		Mockito.verify(auditService).createAuditDTO(RequestSecurityContext.INVALID_USER_ID, "", "Voucher Core -",
+				"/api/core/stores", HTTPVerb.GET);
+	}
+
+}
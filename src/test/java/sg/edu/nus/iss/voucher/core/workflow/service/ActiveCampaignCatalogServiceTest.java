@@ -0,0 +1,87 @@
+package sg.edu.nus.iss.voucher.core.workflow.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.CampaignDTO;
+import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
+import sg.edu.nus.iss.voucher.core.workflow.entity.Store;
+import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
+import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignRepository;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.ActiveCampaignCatalogService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class ActiveCampaignCatalogServiceTest {
+
+	@MockitoBean
+	private CampaignRepository campaignRepository;
+
+	@Autowired
+	private ActiveCampaignCatalogService activeCampaignCatalogService;
+
+	@BeforeEach
+	void setUp() {
+		LocalDateTime now = LocalDateTime.now();
+		Mockito.when(campaignRepository.findByCampaignStatusIn(Arrays.asList(CampaignStatus.PROMOTED))).thenReturn(List.of(
+				campaign("1", "Coffee Morning", now.plusDays(3)), campaign("2", "Weekend coffee", now.plusDays(1)),
+				campaign("3", "Book Fair", now.plusDays(2))));
+		activeCampaignCatalogService.refresh();
+	}
+
+	private Campaign campaign(String campaignId, String description, LocalDateTime startDate) {
+		Campaign campaign = new Campaign();
+		campaign.setCampaignId(campaignId);
+		campaign.setDescription(description);
+		campaign.setStore(new Store());
+		campaign.setCampaignStatus(CampaignStatus.PROMOTED);
+		campaign.setStartDate(startDate);
+		return campaign;
+	}
+
+	@Test
+	void findActiveCampaigns_SortedByStartDate() {
+		List<CampaignDTO> campaigns = activeCampaignCatalogService.findActiveCampaigns("", PageRequest.of(0, 10)).get(3L);
+
+		assertEquals(List.of("2", "3", "1"), campaigns.stream().map(CampaignDTO::getCampaignId).toList());
+	}
+
+	@Test
+	void findActiveCampaigns_FiltersByDescriptionIgnoringCase() {
+		Map<Long, List<CampaignDTO>> result = activeCampaignCatalogService.findActiveCampaigns("COFFEE", PageRequest.of(0, 10));
+
+		assertEquals(List.of("2", "1"), result.get(2L).stream().map(CampaignDTO::getCampaignId).toList());
+	}
+
+	@Test
+	void findActiveCampaigns_PagesWithinTotal() {
+		assertEquals("3", activeCampaignCatalogService.findActiveCampaigns("", PageRequest.of(1, 1)).get(3L).get(0)
+				.getCampaignId());
+		assertTrue(activeCampaignCatalogService.findActiveCampaigns("", PageRequest.of(3, 1)).get(3L).isEmpty());
+	}
+
+	@Test
+	void refresh_SwapsInNewSnapshot() {
+		Mockito.when(campaignRepository.findByCampaignStatusIn(Arrays.asList(CampaignStatus.PROMOTED)))
+				.thenReturn(List.of(campaign("4", "Flash sale", LocalDateTime.now())));
+		activeCampaignCatalogService.refresh();
+
+		assertEquals("4", activeCampaignCatalogService.findActiveCampaigns("", PageRequest.of(0, 10)).get(1L).get(0)
+				.getCampaignId());
+	}
+
+}
@@ -0,0 +1,95 @@
+package sg.edu.nus.iss.voucher.core.workflow.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.APIResponse;
+import sg.edu.nus.iss.voucher.core.workflow.dto.CampaignDTO;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.ActiveCampaignResponseCache;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.CampaignService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class ActiveCampaignResponseCacheTest {
+
+	@MockitoBean
+	private CampaignService campaignService;
+
+	@Autowired
+	private ActiveCampaignResponseCache activeCampaignResponseCache;
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private Supplier<APIResponse<List<CampaignDTO>>> loader(String campaignId) {
+		return () -> {
+			loads.incrementAndGet();
+			CampaignDTO campaignDTO = new CampaignDTO();
+			campaignDTO.setCampaignId(campaignId);
+			return APIResponse.success(List.of(campaignDTO), "Successfully retrieve all active campaigns.", 1);
+		};
+	}
+
+	@Test
+	void get_CachedPerCatalogVersion() throws Exception {
+		Mockito.when(campaignService.findActiveCatalogVersion()).thenReturn(7L);
+
+		ActiveCampaignResponseCache.CachedResponse first = activeCampaignResponseCache.get("cached", PageRequest.of(0, 10),
+				loader("1"));
+		ActiveCampaignResponseCache.CachedResponse second = activeCampaignResponseCache.get("cached", PageRequest.of(0, 10),
+				loader("1"));
+		assertEquals(1, loads.get());
+		assertEquals(first, second);
+
+		Mockito.when(campaignService.findActiveCatalogVersion()).thenReturn(8L);
+		ActiveCampaignResponseCache.CachedResponse rebuilt = activeCampaignResponseCache.get("cached", PageRequest.of(0, 10),
+				loader("2"));
+		assertEquals(2, loads.get());
+		assertNotEquals(first.etag(), rebuilt.etag());
+	}
+
+	@Test
+	void get_NotCachedWhenCatalogSwappedDuringLoad() throws Exception {
+		Mockito.when(campaignService.findActiveCatalogVersion()).thenReturn(3L, 4L, 4L, 4L);
+
+		activeCampaignResponseCache.get("swapped", PageRequest.of(0, 10), loader("1"));
+		activeCampaignResponseCache.get("swapped", PageRequest.of(0, 10), loader("1"));
+		activeCampaignResponseCache.get("swapped", PageRequest.of(0, 10), loader("1"));
+
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void toResponseEntity_GzipWhenAccepted() throws Exception {
+		Mockito.when(campaignService.findActiveCatalogVersion()).thenReturn(1L);
+		ActiveCampaignResponseCache.CachedResponse response = activeCampaignResponseCache.get("gzip", PageRequest.of(0, 10),
+				loader("1"));
+
+		ResponseEntity<byte[]> plain = activeCampaignResponseCache.toResponseEntity(response, null);
+		ResponseEntity<byte[]> gzipped = activeCampaignResponseCache.toResponseEntity(response, "gzip, deflate, br");
+
+		assertArrayEquals(response.json(), plain.getBody());
+		assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertNotEquals(plain.getHeaders().getETag(), gzipped.getHeaders().getETag());
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+			assertArrayEquals(response.json(), in.readAllBytes());
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+package sg.edu.nus.iss.voucher.core.workflow.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
+import sg.edu.nus.iss.voucher.core.workflow.entity.CampaignClaimCounter;
+import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignClaimCounterRepository;
+import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignRepository;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.CampaignClaimCounterService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CampaignClaimCounterServiceTest {
+
+	@MockitoBean
+	private CampaignClaimCounterRepository claimCounterRepository;
+
+	@MockitoBean
+	private CampaignRepository campaignRepository;
+
+	@Autowired
+	private CampaignClaimCounterService claimCounterService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Campaign campaign;
+
+	@BeforeEach
+	void setUp() {
+		campaign = new Campaign();
+		campaign.setCampaignId("1");
+		campaign.setNumberOfVouchers(10);
+		campaign.setClaimCounterShards(3);
+	}
+
+	@Test
+	void reserveVoucher_UnshardedCampaignUsesCampaignCounter() {
+		campaign.setClaimCounterShards(1);
+		Mockito.when(campaignRepository.reserveVoucher("1")).thenReturn(1);
+
+		assertTrue(claimCounterService.reserveVoucher(campaign));
+		Mockito.verify(claimCounterRepository, Mockito.never()).findByCampaignId("1");
+	}
+
+	@Test
+	void reserveVoucher_SkipsDrainedShards() {
+		List<CampaignClaimCounter> shards = List.of(new CampaignClaimCounter("1", 0, 4, 4),
+				new CampaignClaimCounter("1", 1, 1, 3), new CampaignClaimCounter("1", 2, 3, 3));
+		Mockito.when(claimCounterRepository.findByCampaignId("1")).thenReturn(shards);
+		Mockito.when(claimCounterRepository.reserveVoucher("1", 1)).thenReturn(1);
+
+		assertTrue(claimCounterService.reserveVoucher(campaign));
+		Mockito.verify(claimCounterRepository).reserveVoucher("1", 1);
+		Mockito.verify(claimCounterRepository, Mockito.never()).reserveVoucher("1", 0);
+		Mockito.verify(claimCounterRepository, Mockito.never()).reserveVoucher("1", 2);
+		Mockito.verify(campaignRepository, Mockito.never()).reserveVoucher("1");
+	}
+
+	@Test
+	void reserveVoucher_AllShardsFull() {
+		List<CampaignClaimCounter> shards = List.of(new CampaignClaimCounter("1", 0, 4, 4),
+				new CampaignClaimCounter("1", 1, 3, 3), new CampaignClaimCounter("1", 2, 3, 3));
+		Mockito.when(claimCounterRepository.findByCampaignId("1")).thenReturn(shards);
+
+		assertFalse(claimCounterService.reserveVoucher(campaign));
+	}
+
+	@Test
+	void reserveVoucher_FallsBackBeforeShardsAreInitialised() {
+		Mockito.when(claimCounterRepository.findByCampaignId("1")).thenReturn(new ArrayList<>());
+		Mockito.when(campaignRepository.reserveVoucher("1")).thenReturn(0);
+
+		assertFalse(claimCounterService.reserveVoucher(campaign));
+		Mockito.verify(campaignRepository).reserveVoucher("1");
+	}
+
+	@Test
+	void reserveVouchers_ReservesBatchInOneUpdate() {
+		campaign.setClaimCounterShards(1);
+		Mockito.when(campaignRepository.reserveVouchers("1", 4)).thenReturn(1);
+
+		assertEquals(4, claimCounterService.reserveVouchers(campaign, 4));
+		Mockito.verify(campaignRepository, Mockito.never()).reserveVoucher("1");
+	}
+
+	@Test
+	void reserveVouchers_OneAtATimeWhenBatchDoesNotFit() {
+		campaign.setClaimCounterShards(1);
+		Mockito.when(campaignRepository.reserveVouchers("1", 4)).thenReturn(0);
+		Mockito.when(campaignRepository.reserveVoucher("1")).thenReturn(1, 1, 0);
+
+		assertEquals(2, claimCounterService.reserveVouchers(campaign, 4));
+		Mockito.verify(campaignRepository, Mockito.times(3)).reserveVoucher("1");
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void initialiseShards_SpreadsRemainingCapacity() {
+		campaign.setNumberOfClaimedVouchers(2);
+		Mockito.when(claimCounterRepository.lockByCampaignId("1")).thenReturn(new ArrayList<>());
+
+		claimCounterService.initialiseShards(campaign);
+
+		ArgumentCaptor<List<CampaignClaimCounter>> captor = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(claimCounterRepository).saveAll(captor.capture());
+		List<CampaignClaimCounter> shards = captor.getValue();
+		assertEquals(3, shards.size());
+		assertEquals(2, shards.get(0).getClaimed());
+		assertEquals(5, shards.get(0).getCapacity());
+		assertEquals(3, shards.get(1).getCapacity());
+		assertEquals(2, shards.get(2).getCapacity());
+	}
+
+	@Test
+	void claimedVouchers_SumsShards() {
+		Mockito.when(claimCounterRepository.findByCampaignId("1")).thenReturn(
+				List.of(new CampaignClaimCounter("1", 0, 4, 4), new CampaignClaimCounter("1", 1, 2, 3)));
+
+		assertEquals(6, claimCounterService.claimedVouchers(campaign));
+	}
+
+	@Test
+	void recordClaims_AppliedOncePerCampaignAfterCommit() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			claimCounterService.recordClaims("1", 1);
+			claimCounterService.recordClaims("1", 2);
+			claimCounterService.recordClaims("2", 1);
+			Mockito.verify(campaignRepository, Mockito.never()).addClaimedVouchers(Mockito.anyString(), Mockito.anyInt());
+		});
+
+		Mockito.verify(campaignRepository).addClaimedVouchers("1", 3);
+		Mockito.verify(campaignRepository).addClaimedVouchers("2", 1);
+	}
+
+	@Test
+	void recordClaims_DroppedOnRollback() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			claimCounterService.recordClaims("1", 1);
+			status.setRollbackOnly();
+		});
+
+		Mockito.verify(campaignRepository, Mockito.never()).addClaimedVouchers(Mockito.anyString(), Mockito.anyInt());
+	}
+
+}
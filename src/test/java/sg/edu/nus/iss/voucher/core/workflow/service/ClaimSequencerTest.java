@@ -0,0 +1,191 @@
+package sg.edu.nus.iss.voucher.core.workflow.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherClaimResult;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherDTO;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherRequest;
+import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignFullyClaimedException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.ClaimOutcomeUnknownException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyClaimedException;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.ClaimSequencer;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.VoucherService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = { "claim.sequencer.linger.ms=200", "claim.group.commit.timeout.ms=1000" })
+public class ClaimSequencerTest {
+
+	@MockitoBean
+	private VoucherService voucherService;
+
+	@Autowired
+	private ClaimSequencer claimSequencer;
+
+	@SuppressWarnings("unchecked")
+	private void answerClaims(String campaignId) {
+		Mockito.when(voucherService.claimVouchers(Mockito.eq(campaignId), Mockito.anyList())).thenAnswer(invocation -> {
+			List<String> claimants = invocation.getArgument(1);
+			if (claimants.size() > 1 && claimants.contains("BAD")) {
+				throw new RuntimeException("batch failed");
+			}
+			List<VoucherClaimResult> results = new ArrayList<>();
+			for (String claimedBy : claimants) {
+				if (claimedBy.equals("BAD")) {
+					throw new IllegalStateException("bad claimant");
+				}
+				if (claimedBy.equals("DUP")) {
+					throw new VoucherAlreadyClaimedException("Voucher has already been claimed: " + invocation.getArgument(0));
+				}
+				if (claimedBy.equals("LATE")) {
+					results.add(new VoucherClaimResult(invocation.getArgument(0), claimedBy, false, "Campaign has been fully claimed.", null,
+							HttpStatus.UNAUTHORIZED));
+					continue;
+				}
+				VoucherDTO voucherDTO = new VoucherDTO();
+				voucherDTO.setClaimedBy(claimedBy);
+				results.add(new VoucherClaimResult(invocation.getArgument(0), claimedBy, true, "Voucher has been successfully claimed.", voucherDTO,
+						HttpStatus.OK));
+			}
+			return results;
+		});
+	}
+
+	@Test
+	void submit_GroupsClaimsIntoOneBatch() throws Exception {
+		answerClaims("1");
+
+		CompletableFuture<VoucherClaimResult> first = claimSequencer.submit("1", "U1");
+		CompletableFuture<VoucherClaimResult> second = claimSequencer.submit("1", "U2");
+
+		assertEquals("U1", first.get().getVoucher().getClaimedBy());
+		assertEquals("U2", second.get().getVoucher().getClaimedBy());
+		Mockito.verify(voucherService, Mockito.times(1)).claimVouchers(Mockito.eq("1"), Mockito.eq(List.of("U1", "U2")));
+	}
+
+	@Test
+	void submit_FailureMapsBackToOneClaim() throws Exception {
+		answerClaims("2");
+
+		CompletableFuture<VoucherClaimResult> good = claimSequencer.submit("2", "U1");
+		CompletableFuture<VoucherClaimResult> bad = claimSequencer.submit("2", "BAD");
+
+		assertEquals("U1", good.get().getVoucher().getClaimedBy());
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> bad.get());
+		assertEquals(IllegalStateException.class, ex.getCause().getClass());
+	}
+
+	@Test
+	void claimVoucher_FullyClaimed() {
+		answerClaims("3");
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId("3");
+		voucherRequest.setClaimedBy("LATE");
+
+		assertThrows(CampaignFullyClaimedException.class, () -> claimSequencer.claimVoucher(voucherRequest));
+	}
+
+	private static VoucherRequest voucherRequest(String campaignId, String claimedBy) {
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaignId);
+		voucherRequest.setClaimedBy(claimedBy);
+		return voucherRequest;
+	}
+
+	// Holds every batch of the campaign until release is counted down.
+	private void holdClaims(String campaignId, CountDownLatch started, CountDownLatch release) {
+		Mockito.when(voucherService.claimVouchers(Mockito.eq(campaignId), Mockito.anyList())).thenAnswer(invocation -> {
+			started.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return new ArrayList<>();
+		});
+	}
+
+	@Test
+	void claimVoucher_TimeoutWhileBatchRunsIsUnknown() {
+		CountDownLatch release = new CountDownLatch(1);
+		holdClaims("4", new CountDownLatch(1), release);
+
+		try {
+			assertThrows(ClaimOutcomeUnknownException.class, () -> claimSequencer.claimVoucher(voucherRequest("4", "U1")));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	void claimVoucher_TimeoutWhileQueuedDropsClaim() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		holdClaims("5", started, release);
+
+		try {
+			claimSequencer.submit("5", "U1");
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			Exception ex = assertThrows(Exception.class, () -> claimSequencer.claimVoucher(voucherRequest("5", "U2")));
+			assertFalse(ex instanceof ClaimOutcomeUnknownException);
+		} finally {
+			release.countDown();
+		}
+		Thread.sleep(500);
+		Mockito.verify(voucherService, Mockito.never()).claimVouchers(Mockito.eq("5"), Mockito.eq(List.of("U2")));
+	}
+
+	@Test
+	void submit_DuplicateCaughtOnSaveBecomesAlreadyClaimed() throws Exception {
+		answerClaims("7");
+
+		CompletableFuture<VoucherClaimResult> first = claimSequencer.submit("7", "U1");
+		CompletableFuture<VoucherClaimResult> duplicate = claimSequencer.submit("7", "DUP");
+
+		assertTrue(first.get().isClaimed());
+		assertFalse(duplicate.get().isClaimed());
+		assertEquals(HttpStatus.BAD_REQUEST, duplicate.get().getStatus());
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId("7");
+		voucherRequest.setClaimedBy("DUP");
+		assertThrows(VoucherAlreadyClaimedException.class, () -> claimSequencer.claimVoucher(voucherRequest));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void submit_RemovesCampaignQueueOnceDrained() throws Exception {
+		answerClaims("8");
+
+		assertTrue(claimSequencer.submit("8", "U1").get().isClaimed());
+
+		Map<String, ?> queues = (Map<String, ?>) ReflectionTestUtils.getField(claimSequencer, "queues");
+		long deadline = System.currentTimeMillis() + 5000;
+		while (queues.containsKey("8") && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertFalse(queues.containsKey("8"));
+
+		assertTrue(claimSequencer.submit("8", "U2").get(5, TimeUnit.SECONDS).isClaimed());
+	}
+
+}
@@ -0,0 +1,94 @@
+package sg.edu.nus.iss.voucher.core.workflow.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
+import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
+import sg.edu.nus.iss.voucher.core.workflow.repository.VoucherRepository;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.ClaimantIndexService;
+import sg.edu.nus.iss.voucher.core.workflow.utility.ClaimantBloomFilter;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class ClaimantIndexServiceTest {
+
+	@MockitoBean
+	private VoucherRepository voucherRepository;
+
+	@Autowired
+	private ClaimantIndexService claimantIndexService;
+
+	private Campaign campaign;
+
+	@BeforeEach
+	void setUp() {
+		campaign = new Campaign();
+		campaign.setCampaignId("1");
+		campaign.setCampaignStatus(CampaignStatus.PROMOTED);
+		campaign.setNumberOfVouchers(1000);
+	}
+
+	private void awaitWarmUp() throws InterruptedException {
+		for (int i = 0; i < 100 && !claimantIndexService.isDefinitelyNotClaimed(campaign, "probe"); i++) {
+			Thread.sleep(20);
+		}
+	}
+
+	@Test
+	void isDefinitelyNotClaimed_AfterWarmUp() throws Exception {
+		Mockito.when(voucherRepository.findAllClaimantsByCampaignId("1")).thenReturn(List.of("U1", "U2"));
+
+		assertFalse(claimantIndexService.isDefinitelyNotClaimed(campaign, "U3"));
+		awaitWarmUp();
+
+		assertTrue(claimantIndexService.isDefinitelyNotClaimed(campaign, "U3"));
+		assertFalse(claimantIndexService.isDefinitelyNotClaimed(campaign, "U1"));
+	}
+
+	@Test
+	void recordClaim_MakesClaimantPositive() throws Exception {
+		Mockito.when(voucherRepository.findAllClaimantsByCampaignId("1")).thenReturn(List.of());
+		awaitWarmUp();
+
+		claimantIndexService.recordClaim("1", "U9");
+		assertFalse(claimantIndexService.isDefinitelyNotClaimed(campaign, "U9"));
+	}
+
+	@Test
+	void isDefinitelyNotClaimed_NotPromoted() {
+		campaign.setCampaignStatus(CampaignStatus.CREATED);
+
+		assertFalse(claimantIndexService.isDefinitelyNotClaimed(campaign, "U1"));
+		Mockito.verify(voucherRepository, Mockito.never()).findAllClaimantsByCampaignId("1");
+	}
+
+	@Test
+	void bloomFilter_HasNoFalseNegatives() {
+		ClaimantBloomFilter filter = new ClaimantBloomFilter(10000, 0.01);
+		for (int i = 0; i < 10000; i++) {
+			filter.put("user-" + i);
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 10000; i++) {
+			assertTrue(filter.mightContain("user-" + i));
+			if (filter.mightContain("other-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 300);
+	}
+
+}
@@ -0,0 +1,107 @@
+package sg.edu.nus.iss.voucher.core.workflow.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import sg.edu.nus.iss.voucher.core.workflow.dto.APIResponse;
+import sg.edu.nus.iss.voucher.core.workflow.service.impl.IdempotencyService;
+
+public class IdempotencyServiceTest {
+
+	private final IdempotencyService idempotencyService = new IdempotencyService(100, 60, 5000);
+
+	@Test
+	void execute_ReplaysFirstResponse() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		ResponseEntity<APIResponse<String>> first = idempotencyService.execute("claim", "U1", "K1", "C1", () -> {
+			calls.incrementAndGet();
+			return ResponseEntity.ok(APIResponse.success("V1", "claimed"));
+		});
+		ResponseEntity<APIResponse<String>> replay = idempotencyService.execute("claim", "U1", "K1", "C1", () -> {
+			calls.incrementAndGet();
+			return ResponseEntity.ok(APIResponse.success("V2", "claimed"));
+		});
+
+		assertEquals(1, calls.get());
+		assertSame(first, replay);
+	}
+
+	@Test
+	void execute_WithoutKeyAlwaysRuns() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		for (int i = 0; i < 2; i++) {
+			idempotencyService.execute("claim", "U1", null, "C1", () -> {
+				calls.incrementAndGet();
+				return ResponseEntity.ok(APIResponse.success("claimed"));
+			});
+		}
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void execute_DoesNotKeepServerErrors() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		for (int i = 0; i < 2; i++) {
+			idempotencyService.execute("consume", "U1", "K2", "V1", () -> {
+				calls.incrementAndGet();
+				return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(APIResponse.error("failed"));
+			});
+		}
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void execute_RejectsKeyReusedForDifferentRequest() throws Exception {
+		idempotencyService.execute("claim", "U1", "K3", "C1", () -> ResponseEntity.ok(APIResponse.success("claimed")));
+		ResponseEntity<APIResponse<String>> response = idempotencyService.execute("claim", "U1", "K3", "C2",
+				() -> ResponseEntity.ok(APIResponse.success("claimed")));
+
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+	}
+
+	@Test
+	void execute_ConcurrentDuplicateWaitsForFirst() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+
+		CompletableFuture<ResponseEntity<APIResponse<String>>> first = CompletableFuture.supplyAsync(() -> {
+			try {
+				return idempotencyService.execute("claim", "U1", "K4", "C1", () -> {
+					calls.incrementAndGet();
+					started.countDown();
+					release.await(5, TimeUnit.SECONDS);
+					return ResponseEntity.ok(APIResponse.success("V1", "claimed"));
+				});
+			} catch (Exception ex) {
+				throw new RuntimeException(ex);
+			}
+		});
+		started.await(5, TimeUnit.SECONDS);
+		CompletableFuture<ResponseEntity<APIResponse<String>>> duplicate = CompletableFuture.supplyAsync(() -> {
+			try {
+				return idempotencyService.execute("claim", "U1", "K4", "C1", () -> {
+					calls.incrementAndGet();
+					return ResponseEntity.ok(APIResponse.success("V2", "claimed"));
+				});
+			} catch (Exception ex) {
+				throw new RuntimeException(ex);
+			}
+		});
+		release.countDown();
+
+		assertEquals("V1", duplicate.get(5, TimeUnit.SECONDS).getBody().getData());
+		assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get());
+		assertEquals(1, calls.get());
+	}
+
+}
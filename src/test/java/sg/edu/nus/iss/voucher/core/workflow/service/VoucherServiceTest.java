@@ -2,12 +2,17 @@ package sg.edu.nus.iss.voucher.core.workflow.service;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -18,11 +23,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.transaction.annotation.Transactional;
 
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherClaimResult;
+import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherConsumeResult;
 import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherDTO;
 import sg.edu.nus.iss.voucher.core.workflow.dto.VoucherRequest;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Campaign;
@@ -30,6 +38,8 @@ import sg.edu.nus.iss.voucher.core.workflow.entity.Store;
 import sg.edu.nus.iss.voucher.core.workflow.entity.Voucher;
 import sg.edu.nus.iss.voucher.core.workflow.enums.CampaignStatus;
 import sg.edu.nus.iss.voucher.core.workflow.enums.VoucherStatus;
+import sg.edu.nus.iss.voucher.core.workflow.exception.CampaignFullyClaimedException;
+import sg.edu.nus.iss.voucher.core.workflow.exception.VoucherAlreadyConsumedException;
 import sg.edu.nus.iss.voucher.core.workflow.repository.CampaignRepository;
 import sg.edu.nus.iss.voucher.core.workflow.repository.StoreRepository;
 import sg.edu.nus.iss.voucher.core.workflow.repository.VoucherRepository;
@@ -60,7 +70,7 @@ public class VoucherServiceTest {
 			"#04-36/40 Paragon Shopping Centre", "290 Orchard Rd", "", "238859", "Singapore", "Singapore", "Singapore",
 			null, null, null, null, false, "M1", "");
 	private static Campaign campaign = new Campaign("1", "new voucher 1", store, CampaignStatus.CREATED, null, 0, 0,
-			null, null, 0, null, null, "US1", "US1", null, null,  false);
+			null, null, 0, null, null, "US1", "US1", null, null,  false, 0, false, 1, false, 0);
 	private static Voucher voucher1 = new Voucher("1", campaign, VoucherStatus.CLAIMED, LocalDateTime.now(), null,
 			"U1");
 	private static Voucher voucher2 = new Voucher("2", campaign, VoucherStatus.CLAIMED, LocalDateTime.now(), null,
@@ -85,6 +95,7 @@ public class VoucherServiceTest {
 		VoucherRequest voucherRequest = new VoucherRequest();
 		
 		Mockito.when(voucherRepository.save(Mockito.any(Voucher.class))).thenReturn(voucher1);
+		Mockito.when(campaignRepository.reserveVoucher(campaign.getCampaignId())).thenReturn(1);
 		Mockito.when(campaignRepository.findById(campaign.getCampaignId())).thenReturn(Optional.of(campaign));
 		
 		voucherRequest.setCampaignId(voucher1.getCampaign().getCampaignId());
@@ -97,6 +108,140 @@ public class VoucherServiceTest {
 	}
 	
 
+	@Test
+	void claimVoucher_CampaignFullyClaimed() {
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId(campaign.getCampaignId());
+		voucherRequest.setClaimedBy(voucher1.getClaimedBy());
+
+		Mockito.when(campaignRepository.findById(campaign.getCampaignId())).thenReturn(Optional.of(campaign));
+		Mockito.when(campaignRepository.reserveVoucher(campaign.getCampaignId())).thenReturn(0);
+
+		assertThrows(CampaignFullyClaimedException.class, () -> voucherService.claimVoucher(voucherRequest));
+		Mockito.verify(voucherRepository, Mockito.never()).save(Mockito.any(Voucher.class));
+	}
+
+	@Test
+	void claimVoucher_PreMintedPool() throws Exception {
+		Campaign poolCampaign = new Campaign();
+		poolCampaign.setCampaignId("pool-1");
+		poolCampaign.setStore(store);
+		poolCampaign.setPreMintVouchers(true);
+		Voucher unclaimed = new Voucher("pool-voucher-1", poolCampaign, VoucherStatus.UNCLAIMED, null, null, null);
+
+		Mockito.when(campaignRepository.findById("pool-1")).thenReturn(Optional.of(poolCampaign));
+		Mockito.when(voucherRepository.lockUnclaimedVoucherId("pool-1")).thenReturn("pool-voucher-1");
+		Mockito.when(voucherRepository.findById("pool-voucher-1")).thenReturn(Optional.of(unclaimed));
+		Mockito.when(voucherRepository.save(Mockito.any(Voucher.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		Mockito.when(voucherRepository.countClaimedByCampaignId("pool-1")).thenReturn(1);
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId("pool-1");
+		voucherRequest.setClaimedBy("U2");
+
+		VoucherDTO voucherDTO = voucherService.claimVoucher(voucherRequest);
+		assertEquals("pool-voucher-1", voucherDTO.getVoucherId());
+		assertEquals("U2", voucherDTO.getClaimedBy());
+		assertEquals(VoucherStatus.CLAIMED, voucherDTO.getVoucherStatus());
+		assertEquals(1, voucherDTO.getCampaign().getNumberOfClaimedVouchers());
+		Mockito.verify(campaignRepository, Mockito.never()).reserveVoucher(Mockito.anyString());
+	}
+
+	@Test
+	void claimVoucher_PreMintedPoolExhausted() {
+		Campaign poolCampaign = new Campaign();
+		poolCampaign.setCampaignId("pool-2");
+		poolCampaign.setPreMintVouchers(true);
+
+		Mockito.when(campaignRepository.findById("pool-2")).thenReturn(Optional.of(poolCampaign));
+		Mockito.when(voucherRepository.lockUnclaimedVoucherId("pool-2")).thenReturn(null);
+
+		VoucherRequest voucherRequest = new VoucherRequest();
+		voucherRequest.setCampaignId("pool-2");
+		voucherRequest.setClaimedBy("U2");
+
+		assertThrows(CampaignFullyClaimedException.class, () -> voucherService.claimVoucher(voucherRequest));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void claimVouchers_Batch() {
+		Campaign batchCampaign = new Campaign();
+		batchCampaign.setCampaignId("batch-1");
+		batchCampaign.setStore(store);
+		batchCampaign.setNumberOfVouchers(1);
+
+		Mockito.when(campaignRepository.findById("batch-1")).thenReturn(Optional.of(batchCampaign));
+		Mockito.when(voucherRepository.findClaimantsByCampaignId(Mockito.eq("batch-1"), Mockito.anyCollection()))
+				.thenReturn(List.of("U2"));
+		Mockito.when(campaignRepository.reserveVoucher("batch-1")).thenReturn(1, 0);
+		Mockito.when(voucherRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		List<VoucherClaimResult> results = voucherService.claimVouchers("batch-1", List.of("U1", "U2", "U1", "U3"));
+
+		assertEquals(4, results.size());
+		assertTrue(results.get(0).isClaimed());
+		assertEquals("U1", results.get(0).getVoucher().getClaimedBy());
+		assertEquals("Voucher has already been claimed.", results.get(1).getMessage());
+		assertEquals("Voucher has already been claimed.", results.get(2).getMessage());
+		assertFalse(results.get(3).isClaimed());
+		assertEquals("Campaign has been fully claimed.", results.get(3).getMessage());
+		Mockito.verify(voucherRepository).saveAll(Mockito.anyList());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void claimVouchersForUser() {
+		List<Campaign> campaigns = new ArrayList<>();
+		for (String campaignId : List.of("A", "B", "D")) {
+			Campaign bulkCampaign = new Campaign();
+			bulkCampaign.setCampaignId(campaignId);
+			bulkCampaign.setStore(store);
+			bulkCampaign.setNumberOfVouchers(5);
+			campaigns.add(bulkCampaign);
+		}
+		Mockito.when(campaignRepository.findAllById(Mockito.anyIterable())).thenReturn(campaigns);
+		Mockito.when(voucherRepository.findClaimedCampaignIds(Mockito.eq("U1"), Mockito.anyCollection()))
+				.thenReturn(List.of("B"));
+		Mockito.when(campaignRepository.reserveVoucher("A")).thenReturn(1);
+		Mockito.when(campaignRepository.reserveVoucher("D")).thenReturn(0);
+		Mockito.when(voucherRepository.saveAll(Mockito.anyCollection()))
+				.thenAnswer(invocation -> new ArrayList<>((Collection<Voucher>) invocation.getArgument(0)));
+
+		List<VoucherClaimResult> results = voucherService.claimVouchersForUser("U1", List.of("A", "B", "C", "D"));
+
+		assertEquals(4, results.size());
+		assertTrue(results.get(0).isClaimed());
+		assertEquals("A", results.get(0).getVoucher().getCampaign().getCampaignId());
+		assertEquals(HttpStatus.BAD_REQUEST, results.get(1).getStatus());
+		assertEquals(HttpStatus.NOT_FOUND, results.get(2).getStatus());
+		assertEquals(HttpStatus.UNAUTHORIZED, results.get(3).getStatus());
+		Mockito.verify(campaignRepository, Mockito.never()).reserveVoucher("B");
+		Mockito.verify(voucherRepository, Mockito.times(1)).saveAll(Mockito.anyCollection());
+	}
+
+	@Test
+	void isVoucherAlreadyClaimed() {
+		Mockito.when(voucherRepository.existsByCampaignCampaignIdAndClaimedBy(campaign.getCampaignId(), "U1"))
+				.thenReturn(true);
+
+		assertTrue(voucherService.isVoucherAlreadyClaimed("U1", campaign));
+		assertFalse(voucherService.isVoucherAlreadyClaimed("U2", campaign));
+		Mockito.verify(voucherRepository, Mockito.never()).findByCampaignAndClaimedBy(Mockito.any(), Mockito.any());
+	}
+
+	@Test
+	void isCampaignFullyClaimed() {
+		Campaign limitedCampaign = new Campaign();
+		limitedCampaign.setNumberOfVouchers(2);
+		limitedCampaign.setNumberOfClaimedVouchers(1);
+		assertFalse(voucherService.isCampaignFullyClaimed("1", limitedCampaign));
+
+		limitedCampaign.setNumberOfClaimedVouchers(2);
+		assertTrue(voucherService.isCampaignFullyClaimed("1", limitedCampaign));
+		Mockito.verify(voucherRepository, Mockito.never()).findByCampaignCampaignId("1");
+	}
+
 	@Test
 	void findVoucherByCampaignIdAndUserId() throws Exception {
 		Mockito.when(voucherRepository.findByCampaignAndClaimedBy(voucher1.getCampaign(), voucher1.getClaimedBy())).thenReturn(voucher1);
@@ -145,6 +290,7 @@ public class VoucherServiceTest {
 	
 	@Test
 	void consumeVoucher() throws Exception {
+		Mockito.when(voucherRepository.consumeVoucher(Mockito.eq(voucher1.getVoucherId()), Mockito.any())).thenReturn(1);
 		Mockito.when(voucherRepository.findById(voucher1.getVoucherId())).thenReturn(Optional.of(voucher1));
 		Mockito.when(voucherRepository.save(Mockito.any(Voucher.class))).thenReturn(voucher1);
 		Mockito.when(storeRepository.findById(store.getStoreId())).thenReturn(Optional.of(store));
@@ -154,4 +300,33 @@ public class VoucherServiceTest {
 		assertNotNull(voucherDTO.getConsumedTime());
 	}
 
+	@Test
+	void consumeVoucher_AlreadyConsumed() {
+		Voucher consumedVoucher = new Voucher("3", campaign, VoucherStatus.CONSUMED, LocalDateTime.now(),
+				LocalDateTime.now(), "U1");
+		Mockito.when(voucherRepository.consumeVoucher(Mockito.eq("3"), Mockito.any())).thenReturn(0);
+		Mockito.when(voucherRepository.findById("3")).thenReturn(Optional.of(consumedVoucher));
+
+		assertThrows(VoucherAlreadyConsumedException.class, () -> voucherService.consumeVoucher("3"));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	void consumeVouchers() {
+		Voucher claimed = new Voucher("10", campaign, VoucherStatus.CLAIMED, LocalDateTime.now(), null, "U1");
+		Voucher consumed = new Voucher("11", campaign, VoucherStatus.CONSUMED, LocalDateTime.now(), LocalDateTime.now(),
+				"U2");
+		Mockito.when(voucherRepository.lockByVoucherIdIn(Mockito.anyCollection())).thenReturn(List.of(claimed, consumed));
+		Mockito.when(voucherRepository.consumeVouchers(Mockito.anyCollection(), Mockito.any())).thenReturn(1);
+
+		List<VoucherConsumeResult> results = voucherService.consumeVouchers(List.of("10", "11", "12", "10"));
+
+		assertTrue(results.get(0).isConsumed());
+		assertEquals(VoucherStatus.CONSUMED, results.get(0).getVoucher().getVoucherStatus());
+		assertEquals(HttpStatus.UNAUTHORIZED, results.get(1).getStatus());
+		assertEquals(HttpStatus.NOT_FOUND, results.get(2).getStatus());
+		assertFalse(results.get(3).isConsumed());
+		Mockito.verify(voucherRepository).consumeVouchers(Mockito.eq(Set.of("10")), Mockito.any());
+	}
+
 }